@@ -0,0 +1,62 @@
+#!/bin/bash
+# 对比平台线程池模式与虚拟线程模式的吞吐量与尾延迟。
+# 用法：JAVA21_HOME=/path/to/jdk21 scripts/compare-thread-modes.sh [并发数] [秒数] [数据源参数...]
+# 默认使用内存H2数据库；传入 --spring.datasource.url=... 等参数可改为压测MySQL。
+set -e
+cd "$(dirname "$0")/.."
+
+CONCURRENCY=${1:-1000}
+SECONDS_PER_RUN=${2:-30}
+# 只传了并发数时 shift 2 会失败而不移动参数，按实际个数移出前两个位置参数
+shift $(( $# < 2 ? $# : 2 ))
+DATASOURCE_ARGS=("$@")
+if [ ${#DATASOURCE_ARGS[@]} -eq 0 ]; then
+  DATASOURCE_ARGS=(
+    "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;NON_KEYWORDS=SYSTEM_USER,VALUE"
+    "--spring.datasource.driver-class-name=org.h2.Driver"
+    "--spring.datasource.username=sa"
+    "--spring.datasource.password="
+    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+  )
+fi
+JAVA21_HOME=${JAVA21_HOME:-$JAVA_HOME}
+JAVA="$JAVA21_HOME/bin/java"
+PORT=8001
+URL="http://localhost:$PORT"
+
+run_mode() {
+  local mode=$1
+  local profile_args=()
+  if [ "$mode" = "virtual-threads" ]; then
+    profile_args=("--spring.profiles.active=virtual-threads")
+  fi
+
+  "$JAVA" -jar target/healthtrack-backend-1.0.0.jar "${DATASOURCE_ARGS[@]}" "${profile_args[@]}" \
+    --logging.level.root=WARN --logging.level.com.healthtrack=WARN --logging.level.org.springframework.security=WARN \
+    --logging.level.org.hibernate.SQL=WARN --logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN \
+    --spring.jpa.show-sql=false --spring.security.user.password="loadtest-$RANDOM$RANDOM" \
+    > "target/loadtest-$mode.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null" EXIT
+
+  for _ in $(seq 1 60); do
+    curl -s "$URL/api/auth/roles" > /dev/null && break
+    sleep 1
+  done
+
+  local token
+  token=$(curl -s -X POST "$URL/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"username":"loadtest","password":"loadtest1","userType":"USER"}' \
+    | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+  echo -n "$mode: "
+  "$JAVA" scripts/LoadTest.java "$URL/api/user/profile" "$token" "$CONCURRENCY" "$SECONDS_PER_RUN"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+JAVA_HOME="$JAVA21_HOME" mvn -B -q -Pvirtual-threads package -DskipTests
+run_mode platform-threads
+run_mode virtual-threads
@@ -0,0 +1,249 @@
+package com.healthtrack.alert;
+
+import com.healthtrack.dto.Alert;
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.entity.MetricType;
+import com.healthtrack.repository.AlertRepository;
+import com.healthtrack.service.CareTeamService;
+import com.healthtrack.service.LiveFeedHub;
+import com.healthtrack.service.MeasurementsWrittenEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 告警规则引擎。读数写入成功后在写线程上逐条送入各患者的规则状态，不查询数据库；
+ * 只有规则触发时才写入告警记录、查找主治医生并通过实时推送发给医生。
+ * 状态只在本实例内存中：同一患者的读数应由同一实例写入，实例重启后窗口规则需要重新积累一个窗口的读数。
+ */
+@Component
+public class AlertEngine {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AlertEngine.class);
+    
+    @Autowired
+    private AlertRepository alertRepository;
+    
+    @Autowired
+    private CareTeamService careTeamService;
+    
+    @Autowired
+    private LiveFeedHub liveFeedHub;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${alerts.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${alerts.rules:}")
+    private String ruleDefinitions;
+    
+    @Value("${alerts.sweep-interval-seconds:300}")
+    private long sweepIntervalSeconds;
+    
+    private List<AlertRule> rules = Collections.emptyList();
+    // 按MetricType.ordinal()索引，值为作用于该指标的规则下标
+    private int[][] rulesByMetric;
+    private long horizonMillis;
+    
+    private final Map<Long, PatientState> states = new ConcurrentHashMap<>();
+    
+    private ScheduledExecutorService sweeper;
+    
+    private Counter evaluated;
+    private Counter fired;
+    private Counter late;
+    
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            // 规则有误时启动失败，而不是静默地不告警
+            rules = AlertRuleParser.parse(ruleDefinitions);
+        }
+        rulesByMetric = index(rules);
+        for (AlertRule rule : rules) {
+            horizonMillis = Math.max(horizonMillis, rule.getHorizonMillis());
+        }
+        logger.info("Loaded {} alert rules", rules.size());
+        
+        evaluated = meterRegistry.counter("healthtrack.alerts.samples.evaluated");
+        fired = meterRegistry.counter("healthtrack.alerts.fired");
+        late = meterRegistry.counter("healthtrack.alerts.samples.late");
+        Gauge.builder("healthtrack.alerts.patients.tracked", states, Map::size).register(meterRegistry);
+        if (rules.isEmpty()) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "alert-state-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+    
+    @EventListener
+    public void onMeasurementsWritten(MeasurementsWrittenEvent event) {
+        if (rules.isEmpty()) {
+            return;
+        }
+        for (MeasurementBatch batch : event.getBatches()) {
+            List<Alert> alerts = evaluate(batch);
+            for (Alert alert : alerts) {
+                try {
+                    deliver(alert);
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to deliver alert {} for healthId {}: {}",
+                            alert.getRule(), alert.getHealthId(), e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * 把一批读数送入该患者的规则状态，返回触发的告警（尚未保存与推送）。同一患者的批次并发调用时串行执行。
+     */
+    public List<Alert> evaluate(MeasurementBatch batch) {
+        if (rules.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Alert> alerts;
+        do {
+            PatientState patient = states.computeIfAbsent(batch.getHealthId(),
+                    id -> new PatientState(rules.size(), rulesByMetric.length));
+            alerts = evaluate(patient, batch);
+        } while (alerts == null);
+        evaluated.increment(batch.size());
+        return alerts;
+    }
+    
+    // 状态已被清理线程移除时返回null，由调用方取新建的状态重试，避免读数落入已丢弃的状态
+    private List<Alert> evaluate(PatientState patient, MeasurementBatch batch) {
+        List<Alert> alerts = Collections.emptyList();
+        synchronized (patient) {
+            if (patient.removed) {
+                return null;
+            }
+            int lateSamples = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                int metric = batch.getMetric(i).ordinal();
+                if (rulesByMetric[metric].length == 0) {
+                    continue;
+                }
+                // 不晚于该指标上一条读数的读数（补传的历史数据或重复上报）不参与评估，只计数
+                if (batch.getTimestamp(i) <= patient.lastAt[metric]) {
+                    lateSamples++;
+                    continue;
+                }
+                patient.lastAt[metric] = batch.getTimestamp(i);
+                for (int r : rulesByMetric[metric]) {
+                    AlertRule.State state = patient.states[r];
+                    if (state == null) {
+                        state = rules.get(r).newState();
+                        patient.states[r] = state;
+                    }
+                    double value = state.offer(batch.getTimestamp(i), batch.getValue(i));
+                    if (Double.isNaN(value)) {
+                        continue;
+                    }
+                    if (alerts.isEmpty()) {
+                        alerts = new ArrayList<>();
+                    }
+                    AlertRule rule = rules.get(r);
+                    alerts.add(new Alert(batch.getHealthId(), rule.getName(), rule.getExpression(), rule.getMetric(),
+                            value, batch.getTimestamp(i)));
+                }
+            }
+            patient.touchedAt = System.currentTimeMillis();
+            if (lateSamples > 0) {
+                late.increment(lateSamples);
+            }
+        }
+        return alerts;
+    }
+    
+    public List<AlertRule> getRules() {
+        return rules;
+    }
+    
+    private void deliver(Alert alert) {
+        Long doctorId = careTeamService.findDoctorIds(Collections.singleton(alert.getHealthId())).get(alert.getHealthId());
+        alert.setDoctorId(doctorId);
+        alertRepository.insert(alert);
+        fired.increment();
+        if (doctorId != null) {
+            liveFeedHub.publish(doctorId, "alert", alert);
+        }
+    }
+    
+    // 超过最长规则跨度没有新读数的患者，其状态等价于新建状态，可以丢弃
+    private void sweep() {
+        long cutoff = System.currentTimeMillis() - horizonMillis;
+        Iterator<PatientState> iterator = states.values().iterator();
+        while (iterator.hasNext()) {
+            PatientState patient = iterator.next();
+            synchronized (patient) {
+                if (patient.touchedAt < cutoff) {
+                    patient.removed = true;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+    
+    private static int[][] index(List<AlertRule> rules) {
+        int[][] index = new int[MetricType.values().length][];
+        for (int m = 0; m < index.length; m++) {
+            List<Integer> matching = new ArrayList<>();
+            for (int r = 0; r < rules.size(); r++) {
+                if (rules.get(r).getMetric().ordinal() == m) {
+                    matching.add(r);
+                }
+            }
+            index[m] = matching.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return index;
+    }
+    
+    private static final class PatientState {
+        // 按规则下标索引，患者第一次出现对应指标的读数时才创建
+        private final AlertRule.State[] states;
+        // 按MetricType.ordinal()索引，已评估的最新读数时间
+        private final long[] lastAt;
+        // 以下字段只在持有本对象的锁时访问
+        private long touchedAt = System.currentTimeMillis();
+        private boolean removed;
+        
+        private PatientState(int ruleCount, int metricCount) {
+            this.states = new AlertRule.State[ruleCount];
+            this.lastAt = new long[metricCount];
+            Arrays.fill(lastAt, Long.MIN_VALUE);
+        }
+    }
+}
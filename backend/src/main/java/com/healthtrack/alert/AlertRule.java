@@ -0,0 +1,50 @@
+package com.healthtrack.alert;
+
+import com.healthtrack.entity.MetricType;
+
+/**
+ * 编译后的告警规则。规则本身不可变、可在线程间共享；每个患者每条规则一个State，占用固定大小的内存。
+ */
+public abstract class AlertRule {
+    
+    private final String name;
+    private final String expression;
+    private final MetricType metric;
+    
+    protected AlertRule(String name, String expression, MetricType metric) {
+        this.name = name;
+        this.expression = expression;
+        this.metric = metric;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getExpression() {
+        return expression;
+    }
+    
+    public MetricType getMetric() {
+        return metric;
+    }
+    
+    /**
+     * 超过这段时间（按读数时间）没有新读数的状态等价于新建的状态，可以丢弃。
+     */
+    public abstract long getHorizonMillis();
+    
+    public abstract State newState();
+    
+    /**
+     * 单个患者在一条规则上的增量状态。读数须按时间递增送入，不晚于上一条的读数（迟到或重复）被忽略。
+     * 同一个State同一时刻只能由一个线程访问。
+     */
+    public interface State {
+        
+        /**
+         * 送入一条读数。规则由不满足变为满足时返回触发值（阈值规则为当前读数，窗口规则为聚合值），否则返回NaN。
+         */
+        double offer(long timestamp, double value);
+    }
+}
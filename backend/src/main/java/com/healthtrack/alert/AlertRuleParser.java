@@ -0,0 +1,111 @@
+package com.healthtrack.alert;
+
+import com.healthtrack.entity.MetricType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 把告警规则的文本定义编译成AlertRule。每行一条规则，格式为“名称: 表达式”，空行与#开头的行忽略：
+ * <pre>
+ * resting-tachycardia: HEART_RATE > 120 for 10m
+ * high-average-glucose: avg(BLOOD_GLUCOSE, 1d) >= 10
+ * systolic-rising: slope(SYSTOLIC_PRESSURE, 3d) > 2
+ * </pre>
+ * 时长单位为s、m、h、d；slope的阈值单位为每天。
+ */
+public final class AlertRuleParser {
+    
+    private static final Pattern RULE = Pattern.compile("([a-z0-9][a-z0-9-]{0,63})\\s*:\\s*(.+)");
+    private static final Pattern THRESHOLD = Pattern.compile(
+            "([A-Z_]+)\\s*(>=|<=|>|<)\\s*(-?\\d+(?:\\.\\d+)?)\\s+for\\s+(\\d+)([smhd])");
+    private static final Pattern WINDOW = Pattern.compile(
+            "(avg|slope)\\(\\s*([A-Z_]+)\\s*,\\s*(\\d+)([smhd])\\s*\\)\\s*(>=|<=|>|<)\\s*(-?\\d+(?:\\.\\d+)?)");
+    
+    private AlertRuleParser() {
+    }
+    
+    /**
+     * @throws IllegalArgumentException 任一行无法解析或规则名称重复，消息中包含行号
+     */
+    public static List<AlertRule> parse(String definitions) {
+        List<AlertRule> rules = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        if (definitions == null) {
+            return rules;
+        }
+        String[] lines = definitions.split("\\r?\\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                AlertRule rule = parseRule(line);
+                if (!names.add(rule.getName())) {
+                    throw new IllegalArgumentException("Duplicate rule name: " + rule.getName());
+                }
+                rules.add(rule);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid alert rule on line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return rules;
+    }
+    
+    public static AlertRule parseRule(String line) {
+        Matcher rule = RULE.matcher(line.trim());
+        if (!rule.matches()) {
+            throw new IllegalArgumentException("Expected \"name: expression\" but got \"" + line + "\"");
+        }
+        String name = rule.group(1);
+        String expression = rule.group(2).trim();
+        // 与patient_alert.rule_expression的列宽一致
+        if (expression.length() > 255) {
+            throw new IllegalArgumentException("Expression longer than 255 characters");
+        }
+        
+        Matcher threshold = THRESHOLD.matcher(expression);
+        if (threshold.matches()) {
+            return new ThresholdRule(name, expression, metric(threshold.group(1)),
+                    Comparison.fromSymbol(threshold.group(2)), Double.parseDouble(threshold.group(3)),
+                    duration(threshold.group(4), threshold.group(5)));
+        }
+        Matcher window = WINDOW.matcher(expression);
+        if (window.matches()) {
+            return new WindowRule(name, expression, metric(window.group(2)),
+                    WindowRule.Function.valueOf(window.group(1).toUpperCase(Locale.ROOT)),
+                    duration(window.group(3), window.group(4)),
+                    Comparison.fromSymbol(window.group(5)), Double.parseDouble(window.group(6)));
+        }
+        throw new IllegalArgumentException("Unrecognized expression \"" + expression + "\"");
+    }
+    
+    private static MetricType metric(String name) {
+        try {
+            return MetricType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown metric: " + name);
+        }
+    }
+    
+    private static long duration(String amount, String unit) {
+        long value = Long.parseLong(amount);
+        switch (unit) {
+            case "s":
+                return TimeUnit.SECONDS.toMillis(value);
+            case "m":
+                return TimeUnit.MINUTES.toMillis(value);
+            case "h":
+                return TimeUnit.HOURS.toMillis(value);
+            default:
+                return TimeUnit.DAYS.toMillis(value);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.healthtrack.alert;
+
+/**
+ * 规则表达式中的比较运算符。
+ */
+public enum Comparison {
+    GT(">"),
+    GE(">="),
+    LT("<"),
+    LE("<=");
+    
+    private final String symbol;
+    
+    Comparison(String symbol) {
+        this.symbol = symbol;
+    }
+    
+    public String getSymbol() {
+        return symbol;
+    }
+    
+    public boolean test(double value, double threshold) {
+        switch (this) {
+            case GT:
+                return value > threshold;
+            case GE:
+                return value >= threshold;
+            case LT:
+                return value < threshold;
+            default:
+                return value <= threshold;
+        }
+    }
+    
+    public static Comparison fromSymbol(String symbol) {
+        for (Comparison comparison : values()) {
+            if (comparison.symbol.equals(symbol)) {
+                return comparison;
+            }
+        }
+        throw new IllegalArgumentException("Unknown comparison: " + symbol);
+    }
+}
@@ -0,0 +1,66 @@
+package com.healthtrack.alert;
+
+import com.healthtrack.entity.MetricType;
+
+/**
+ * 持续超限规则，例如 HEART_RATE > 120 for 10m：连续的读数都满足条件且持续了duration即触发，每次超限只触发一次。
+ * 相邻两条读数间隔超过duration视为中断，重新开始计时。
+ */
+public class ThresholdRule extends AlertRule {
+    
+    private static final long NONE = Long.MIN_VALUE;
+    
+    private final Comparison comparison;
+    private final double threshold;
+    private final long durationMillis;
+    
+    public ThresholdRule(String name, String expression, MetricType metric, Comparison comparison, double threshold,
+                         long durationMillis) {
+        super(name, expression, metric);
+        this.comparison = comparison;
+        this.threshold = threshold;
+        this.durationMillis = durationMillis;
+    }
+    
+    @Override
+    public long getHorizonMillis() {
+        return durationMillis;
+    }
+    
+    @Override
+    public AlertRule.State newState() {
+        return new State();
+    }
+    
+    private final class State implements AlertRule.State {
+        private long lastAt = NONE;
+        // 本次连续超限的第一条读数时间；NONE表示当前未超限
+        private long breachSince = NONE;
+        private boolean fired;
+        
+        @Override
+        public double offer(long timestamp, double value) {
+            if (lastAt != NONE && timestamp <= lastAt) {
+                return Double.NaN;
+            }
+            if (lastAt != NONE && timestamp - lastAt > durationMillis) {
+                breachSince = NONE;
+                fired = false;
+            }
+            lastAt = timestamp;
+            if (!comparison.test(value, threshold)) {
+                breachSince = NONE;
+                fired = false;
+                return Double.NaN;
+            }
+            if (breachSince == NONE) {
+                breachSince = timestamp;
+            }
+            if (!fired && timestamp - breachSince >= durationMillis) {
+                fired = true;
+                return value;
+            }
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.healthtrack.alert;
+
+import com.healthtrack.entity.MetricType;
+
+import java.util.Arrays;
+
+/**
+ * 滑动窗口聚合规则，例如 avg(HEART_RATE, 1h) > 100 或 slope(SYSTOLIC_PRESSURE, 3d) > 2。
+ * 窗口切成BUCKETS个等宽的桶，每个桶保存计数与求和，窗口以桶为单位滑动，因此状态大小与读数频率无关。
+ * slope为最小二乘拟合的斜率，单位为每天。窗口内的读数覆盖满一个窗口之前不触发；条件由不满足变为满足时触发一次。
+ */
+public class WindowRule extends AlertRule {
+    
+    public enum Function {
+        AVG,
+        SLOPE
+    }
+    
+    static final int BUCKETS = 12;
+    
+    private static final long NONE = Long.MIN_VALUE;
+    private static final double MILLIS_PER_DAY = 86400000.0;
+    
+    private final Function function;
+    private final Comparison comparison;
+    private final double threshold;
+    private final long windowMillis;
+    private final long bucketMillis;
+    
+    public WindowRule(String name, String expression, MetricType metric, Function function, long windowMillis,
+                      Comparison comparison, double threshold) {
+        super(name, expression, metric);
+        if (windowMillis < BUCKETS) {
+            throw new IllegalArgumentException("Window too short: " + windowMillis + "ms");
+        }
+        this.function = function;
+        this.comparison = comparison;
+        this.threshold = threshold;
+        this.windowMillis = windowMillis;
+        this.bucketMillis = windowMillis / BUCKETS;
+    }
+    
+    @Override
+    public long getHorizonMillis() {
+        return windowMillis;
+    }
+    
+    @Override
+    public AlertRule.State newState() {
+        return new State(function == Function.SLOPE);
+    }
+    
+    private final class State implements AlertRule.State {
+        // 环形数组，槽位bucket % BUCKETS保存编号为bucket的桶；x为距origin的天数，只有slope使用
+        private final long[] bucketOf = new long[BUCKETS];
+        private final double[] count = new double[BUCKETS];
+        private final double[] sumY = new double[BUCKETS];
+        private final double[] sumX;
+        private final double[] sumXX;
+        private final double[] sumXY;
+        // 窗口内的合计。只在加入读数时累加，桶滑出时从各桶重新求和，不会累积浮点误差
+        private double n;
+        private double sy;
+        private double sx;
+        private double sxx;
+        private double sxy;
+        private long lastAt = NONE;
+        private long newestBucket;
+        private long firstBucket;
+        private long origin;
+        private boolean fired;
+        
+        private State(boolean regression) {
+            sumX = regression ? new double[BUCKETS] : null;
+            sumXX = regression ? new double[BUCKETS] : null;
+            sumXY = regression ? new double[BUCKETS] : null;
+        }
+        
+        @Override
+        public double offer(long timestamp, double value) {
+            if (lastAt != NONE && timestamp <= lastAt) {
+                return Double.NaN;
+            }
+            long bucket = Math.floorDiv(timestamp, bucketMillis);
+            if (lastAt == NONE || bucket - newestBucket >= BUCKETS) {
+                // 首条读数，或间隔超过整个窗口：从空窗口重新开始
+                reset(bucket, timestamp);
+            } else if (bucket > newestBucket) {
+                slide(bucket);
+            }
+            lastAt = timestamp;
+            
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            bucketOf[slot] = bucket;
+            count[slot]++;
+            sumY[slot] += value;
+            n++;
+            sy += value;
+            if (sumX != null) {
+                double x = (timestamp - origin) / MILLIS_PER_DAY;
+                sumX[slot] += x;
+                sumXX[slot] += x * x;
+                sumXY[slot] += x * value;
+                sx += x;
+                sxx += x * x;
+                sxy += x * value;
+            }
+            
+            if (bucket - firstBucket < BUCKETS - 1) {
+                return Double.NaN;
+            }
+            double aggregate = aggregate();
+            if (Double.isNaN(aggregate) || !comparison.test(aggregate, threshold)) {
+                fired = false;
+                return Double.NaN;
+            }
+            if (fired) {
+                return Double.NaN;
+            }
+            fired = true;
+            return aggregate;
+        }
+        
+        private double aggregate() {
+            if (function == Function.AVG) {
+                return sy / n;
+            }
+            double denominator = n * sxx - sx * sx;
+            // 读数过少或时间上没有分布（例如同一时刻的多条读数）时斜率无意义
+            if (n < 3 || denominator <= 1e-12 * n * sxx) {
+                return Double.NaN;
+            }
+            return (n * sxy - sx * sy) / denominator;
+        }
+        
+        private void reset(long bucket, long timestamp) {
+            Arrays.fill(bucketOf, NONE);
+            Arrays.fill(count, 0);
+            Arrays.fill(sumY, 0);
+            if (sumX != null) {
+                Arrays.fill(sumX, 0);
+                Arrays.fill(sumXX, 0);
+                Arrays.fill(sumXY, 0);
+            }
+            n = 0;
+            sy = 0;
+            sx = 0;
+            sxx = 0;
+            sxy = 0;
+            newestBucket = bucket;
+            firstBucket = bucket;
+            origin = timestamp;
+            fired = false;
+        }
+        
+        // 清空滑出窗口的桶后重新求合计
+        private void slide(long bucket) {
+            newestBucket = bucket;
+            n = 0;
+            sy = 0;
+            sx = 0;
+            sxx = 0;
+            sxy = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (bucketOf[i] != NONE && bucket - bucketOf[i] >= BUCKETS) {
+                    bucketOf[i] = NONE;
+                    count[i] = 0;
+                    sumY[i] = 0;
+                    if (sumX != null) {
+                        sumX[i] = 0;
+                        sumXX[i] = 0;
+                        sumXY[i] = 0;
+                    }
+                }
+                n += count[i];
+                sy += sumY[i];
+                if (sumX != null) {
+                    sx += sumX[i];
+                    sxx += sumXX[i];
+                    sxy += sumXY[i];
+                }
+            }
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.healthtrack.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
     
+    // 仅在scale profile下存在，用于生成压测规模的数据
+    @Autowired(required = false)
+    private ScaleDataGenerator scaleDataGenerator;
+    
     @Override
     public void run(String... args) throws Exception {
-        // 数据初始化逻辑已移除
-        // 如需测试数据，请手动创建或使用数据库脚本
+        // 默认不初始化任何业务数据
+        // 如需测试数据，请手动创建、使用数据库脚本，或以scale profile启动生成合成数据
+        if (scaleDataGenerator != null) {
+            scaleDataGenerator.generate();
+        }
         System.out.println("HealthTrack应用启动完成");
     }
-}
\ No newline at end of file
+}
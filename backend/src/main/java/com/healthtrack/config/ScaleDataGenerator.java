@@ -0,0 +1,294 @@
+package com.healthtrack.config;
+
+import com.healthtrack.repository.IdBlockAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测用的合成数据生成器，仅在scale profile下启用。
+ * 直接以JDBC批量写入system_user与system_provider，所有账号共用一个预先计算好的密码哈希。
+ * 同一seed生成的数据完全相同，便于在不同机器上复现同样规模的表。
+ */
+@Component
+@Profile("scale")
+public class ScaleDataGenerator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ScaleDataGenerator.class);
+    
+    private static final String INSERT_USER = "INSERT INTO system_user "
+            + "(id, username, password, health_id, name, phone, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_DOCTOR = "INSERT INTO system_provider "
+            + "(id, username, password, license_id, name, phone, role, is_verified, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    // 常见姓氏及其大致人口占比（千分比）
+    private static final String[][] SURNAMES = {
+            {"王", "wang"}, {"李", "li"}, {"张", "zhang"}, {"刘", "liu"}, {"陈", "chen"}, {"杨", "yang"},
+            {"黄", "huang"}, {"赵", "zhao"}, {"吴", "wu"}, {"周", "zhou"}, {"徐", "xu"}, {"孙", "sun"},
+            {"马", "ma"}, {"朱", "zhu"}, {"胡", "hu"}, {"郭", "guo"}, {"何", "he"}, {"高", "gao"},
+            {"林", "lin"}, {"罗", "luo"}, {"郑", "zheng"}, {"梁", "liang"}, {"谢", "xie"}, {"宋", "song"},
+            {"唐", "tang"}, {"许", "xu"}, {"韩", "han"}, {"冯", "feng"}, {"邓", "deng"}, {"曹", "cao"}
+    };
+    private static final int[] SURNAME_WEIGHTS = {
+            71, 79, 71, 54, 45, 31, 22, 22, 20, 19, 16, 15, 14, 13, 13, 12, 12, 11, 11, 9, 9, 9, 7, 7, 7, 6, 6, 6, 6, 5
+    };
+    
+    private static final String[][] GIVEN_NAMES = {
+            {"伟", "wei"}, {"芳", "fang"}, {"娜", "na"}, {"敏", "min"}, {"静", "jing"}, {"丽", "li"},
+            {"强", "qiang"}, {"磊", "lei"}, {"军", "jun"}, {"洋", "yang"}, {"勇", "yong"}, {"艳", "yan"},
+            {"杰", "jie"}, {"娟", "juan"}, {"涛", "tao"}, {"明", "ming"}, {"超", "chao"}, {"秀", "xiu"},
+            {"霞", "xia"}, {"平", "ping"}, {"刚", "gang"}, {"桂", "gui"}, {"英", "ying"}, {"华", "hua"},
+            {"文", "wen"}, {"辉", "hui"}, {"鑫", "xin"}, {"宇", "yu"}, {"浩", "hao"}, {"婷", "ting"}
+    };
+    
+    // 三大运营商的常见号段及其大致占比
+    private static final int[] PHONE_PREFIXES = {
+            138, 139, 137, 136, 135, 150, 151, 152, 158, 159, 182, 183, 187, 188,
+            130, 131, 132, 155, 156, 185, 186, 133, 153, 180, 181, 189, 177, 199
+    };
+    private static final int[] PHONE_PREFIX_WEIGHTS = {
+            9, 9, 6, 6, 6, 5, 5, 4, 5, 5, 4, 3, 4, 4,
+            4, 4, 3, 3, 3, 3, 4, 3, 3, 3, 2, 4, 2, 2
+    };
+    
+    // 专科编码与前端Profile.vue一致：1内科 2外科 3儿科 4妇产科 5眼科 6耳鼻喉科 7皮肤科 8精神科 9急诊科 10其他
+    private static final int[] SPECIALIZATION_WEIGHTS = {30, 20, 9, 9, 5, 5, 5, 3, 7, 7};
+    
+    // 行号到手机号后8位、健康卡号、执业证号序列的双射：x -> (a * x + c) mod m，a与m互素且a * m不溢出long
+    private static final long PHONE_SPACE = 100_000_000L;
+    private static final long HEALTH_ID_SPACE = 9_000_000_000L;
+    private static final long LICENSE_SPACE = 10_000_000_000L;
+    
+    private static final long HISTORY_DAYS = 3 * 365;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+    
+    @Value("${scale-data.users:1000000}")
+    private long targetUsers;
+    
+    @Value("${scale-data.doctors:100000}")
+    private long targetDoctors;
+    
+    @Value("${scale-data.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${scale-data.threads:1}")
+    private int threads;
+    
+    @Value("${scale-data.seed:20240101}")
+    private long seed;
+    
+    @Value("${scale-data.password:password123}")
+    private String password;
+    
+    public void generate() throws Exception {
+        String encodedPassword = passwordEncoder.encode(password);
+        long existingUsers = count("system_user");
+        long existingDoctors = count("system_provider");
+        
+        // 已有行数视为上次生成的进度，从该行号继续，保证重复启动不会写入重复数据。
+        // 只有单线程时已提交的批次才是连续的前缀；多线程生成中途中断后，续跑会重写部分行号并留下空洞
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            long start = System.currentTimeMillis();
+            load(executor, "users", IdBlockAllocator.USER_SEQUENCE, existingUsers, targetUsers,
+                    (from, to, firstId) -> insertUsers(from, to, firstId, encodedPassword));
+            load(executor, "doctors", IdBlockAllocator.DOCTOR_SEQUENCE, existingDoctors, targetDoctors,
+                    (from, to, firstId) -> insertDoctors(from, to, firstId, encodedPassword));
+            logger.info("Scale data ready in {} s: {} users, {} doctors",
+                    (System.currentTimeMillis() - start) / 1000, count("system_user"), count("system_provider"));
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+    
+    private void load(ExecutorService executor, String label, String sequence, long existing, long target,
+                      BatchWriter writer) throws Exception {
+        if (existing >= target) {
+            logger.info("Skipping {}: {} rows already present (target {})", label, existing, target);
+            return;
+        }
+        
+        long start = System.currentTimeMillis();
+        AtomicLong written = new AtomicLong();
+        long total = target - existing;
+        long reportEvery = Math.max(batchSize, total / 20);
+        List<Future<?>> futures = new ArrayList<>();
+        for (long from = existing; from < target; from += batchSize) {
+            long batchFrom = from;
+            long batchTo = Math.min(target, from + batchSize);
+            futures.add(executor.submit(() -> {
+                // 主键与实体共用id_generator，之后通过JPA新建的账号不会与生成的数据冲突
+                long firstId = idBlockAllocator.allocate(sequence, (int) (batchTo - batchFrom));
+                transactionTemplate.executeWithoutResult(status -> writer.write(batchFrom, batchTo, firstId));
+                long done = written.addAndGet(batchTo - batchFrom);
+                if (done / reportEvery != (done - (batchTo - batchFrom)) / reportEvery) {
+                    long elapsed = Math.max(1, System.currentTimeMillis() - start);
+                    logger.info("Generated {}/{} {} ({} rows/s)", done, total, label, done * 1000 / elapsed);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+    
+    private void insertUsers(long from, long to, long firstId, String encodedPassword) {
+        SplittableRandom random = new SplittableRandom(seed ^ (from * 0x9E3779B97F4A7C15L));
+        jdbcTemplate.batchUpdate(INSERT_USER, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                long row = from + i;
+                String[] surname = SURNAMES[pick(random, SURNAME_WEIGHTS)];
+                String[] given = GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+                Timestamp createdAt = createdAt(random);
+                
+                ps.setLong(1, firstId + i);
+                ps.setString(2, username(random, "", surname[1], given[1], row));
+                ps.setString(3, encodedPassword);
+                // 健康卡号、姓名、手机号均为可选字段，按比例留空
+                setNullableLong(ps, 4, random.nextInt(100) < 80
+                        ? 1_000_000_000L + permute(row, 982_451_653L, 1_013_904_223L, HEALTH_ID_SPACE) : null);
+                ps.setString(5, random.nextInt(100) < 90 ? surname[0] + given[0] : null);
+                ps.setString(6, random.nextInt(100) < 85 ? phone(random, row) : null);
+                ps.setTimestamp(7, createdAt);
+                ps.setTimestamp(8, createdAt);
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return (int) (to - from);
+            }
+        });
+    }
+    
+    private void insertDoctors(long from, long to, long firstId, String encodedPassword) {
+        SplittableRandom random = new SplittableRandom(~seed ^ (from * 0x9E3779B97F4A7C15L));
+        jdbcTemplate.batchUpdate(INSERT_DOCTOR, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                long row = from + i;
+                String[] surname = SURNAMES[pick(random, SURNAME_WEIGHTS)];
+                String[] given = GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+                Timestamp createdAt = createdAt(random);
+                // 执业证号：两位省级行政区划代码 + 10位序列
+                long province = 11 + random.nextInt(55);
+                
+                ps.setLong(1, firstId + i);
+                ps.setString(2, username(random, random.nextBoolean() ? "dr" : "", surname[1], given[1], row));
+                ps.setString(3, encodedPassword);
+                ps.setLong(4, province * LICENSE_SPACE + permute(row, 387_420_489L, 1_442_695_041L, LICENSE_SPACE));
+                ps.setString(5, surname[0] + given[0]);
+                // 医生与普通用户的手机号取自同一双射的不同区段，两张表之间也不会重复
+                ps.setString(6, random.nextInt(100) < 95 ? phone(random, targetUsers + row) : null);
+                ps.setInt(7, pick(random, SPECIALIZATION_WEIGHTS) + 1);
+                ps.setBoolean(8, random.nextInt(100) < 70);
+                ps.setTimestamp(9, createdAt);
+                ps.setTimestamp(10, createdAt);
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return (int) (to - from);
+            }
+        });
+    }
+    
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count != null ? count : 0;
+    }
+    
+    /**
+     * 用户名由拼音与行号组成；行号是末尾唯一的数字串，因此不同行不会生成相同的用户名。
+     */
+    private static String username(SplittableRandom random, String prefix, String surname, String given, long row) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return prefix + surname + given + row;
+            case 1:
+                return prefix + given + "." + surname + row;
+            case 2:
+                return prefix + surname + "_" + given + row;
+            default:
+                return prefix + surname.charAt(0) + given + row;
+        }
+    }
+    
+    private static String phone(SplittableRandom random, long row) {
+        long suffix = permute(row, 48_271L, 12_345_679L, PHONE_SPACE);
+        return PHONE_PREFIXES[pick(random, PHONE_PREFIX_WEIGHTS)] + String.format("%08d", suffix);
+    }
+    
+    private static long permute(long value, long multiplier, long increment, long modulus) {
+        return (value % modulus * multiplier % modulus + increment) % modulus;
+    }
+    
+    private static Timestamp createdAt(SplittableRandom random) {
+        // 注册量随时间增长：越近的日期越密集
+        double age = HISTORY_DAYS * (1 - Math.sqrt(random.nextDouble()));
+        long millis = System.currentTimeMillis() - (long) (age * TimeUnit.DAYS.toMillis(1));
+        return new Timestamp(millis);
+    }
+    
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+    
+    private static int pick(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int target = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            target -= weights[i];
+            if (target < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+    
+    @FunctionalInterface
+    private interface BatchWriter {
+        void write(long from, long to, long firstId);
+    }
+}
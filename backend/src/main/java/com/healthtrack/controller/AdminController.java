@@ -0,0 +1,73 @@
+package com.healthtrack.controller;
+
+import com.healthtrack.dto.ImportReport;
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.service.AccountImportService;
+import com.healthtrack.service.CareTeamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 运维接口，使用HTTP Basic认证（spring.security.user），与用户的JWT认证相互独立。
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    
+    @Autowired
+    private AccountImportService accountImportService;
+    
+    @Autowired
+    private CareTeamService careTeamService;
+    
+    // 请求体按行流式读取，不会整体载入内存
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "application/json"})
+    public ResponseEntity<?> importAccounts(@RequestParam(defaultValue = "USER") String userType,
+                                            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                            HttpServletRequest request) throws IOException {
+        AccountImportService.Format format;
+        try {
+            format = AccountImportService.Format.fromContentType(contentType);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Import failed");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        UserRole role = "DOCTOR".equalsIgnoreCase(userType) ? UserRole.DOCTOR : UserRole.USER;
+        ImportReport report = accountImportService.importAccounts(request.getInputStream(), format, role);
+        return ResponseEntity.ok(report);
+    }
+    
+    // 指定患者的主治医生；DELETE取消分配
+    @PutMapping("/patients/{healthId}/doctor/{doctorId}")
+    public ResponseEntity<?> assignDoctor(@PathVariable long healthId, @PathVariable long doctorId) {
+        return assign(healthId, doctorId);
+    }
+    
+    @DeleteMapping("/patients/{healthId}/doctor")
+    public ResponseEntity<?> unassignDoctor(@PathVariable long healthId) {
+        return assign(healthId, null);
+    }
+    
+    private ResponseEntity<?> assign(long healthId, Long doctorId) {
+        try {
+            careTeamService.assign(healthId, doctorId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Assignment failed");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+    }
+}
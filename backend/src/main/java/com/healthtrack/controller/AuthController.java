@@ -2,10 +2,20 @@ package com.healthtrack.controller;
 
 import com.healthtrack.dto.AuthResponse;
 import com.healthtrack.dto.LoginRequest;
+import com.healthtrack.dto.RefreshRequest;
 import com.healthtrack.dto.RegisterRequest;
+import com.healthtrack.security.InvalidRefreshTokenException;
+import com.healthtrack.security.JwtUtils;
+import com.healthtrack.security.PasswordHashingRejectedException;
+import com.healthtrack.security.TokenRevocationStore;
+import com.healthtrack.security.TokenRevokedEvent;
+import io.jsonwebtoken.Claims;
 import com.healthtrack.service.AuthService;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,12 +30,25 @@ public class AuthController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private JwtUtils jwtUtils;
+    
+    @Autowired
+    private TokenRevocationStore revocationStore;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         try {
             AuthResponse authResponse = authService.login(loginRequest);
             return ResponseEntity.ok(authResponse);
         } catch (Exception e) {
+            PasswordHashingRejectedException rejected = findHashingRejection(e);
+            if (rejected != null) {
+                return serviceBusy(rejected);
+            }
             Map<String, String> error = new HashMap<>();
             error.put("error", "Invalid credentials");
             error.put("message", e.getMessage());
@@ -39,6 +62,10 @@ public class AuthController {
             AuthResponse authResponse = authService.register(registerRequest);
             return ResponseEntity.ok(authResponse);
         } catch (Exception e) {
+            PasswordHashingRejectedException rejected = findHashingRejection(e);
+            if (rejected != null) {
+                return serviceBusy(rejected);
+            }
             Map<String, String> error = new HashMap<>();
             error.put("error", "Registration failed");
             error.put("message", e.getMessage());
@@ -46,10 +73,71 @@ public class AuthController {
         }
     }
     
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest refreshRequest) {
+        try {
+            return ResponseEntity.ok(authService.refresh(refreshRequest.getRefreshToken()));
+        } catch (InvalidRefreshTokenException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid refresh token");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+    }
+    
+    /**
+     * 注销：吊销请求头中的访问令牌直到其自然过期，并作废请求体中刷新令牌所在的整个family。
+     * 访问令牌已过期时只提交刷新令牌即可。
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                    @RequestBody(required = false) RefreshRequest refreshRequest) {
+        String refreshToken = refreshRequest != null ? refreshRequest.getRefreshToken() : null;
+        Claims claims = authorization != null && authorization.startsWith("Bearer ")
+                ? jwtUtils.verifyJwtToken(authorization.substring(7)) : null;
+        Map<String, String> body = new HashMap<>();
+        if (claims == null && refreshToken == null) {
+            body.put("error", "Invalid token");
+            body.put("message", "A valid Bearer token or refresh token is required");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
+        }
+        authService.logout(refreshToken);
+        if (claims != null && !revocationStore.revoke(claims)) {
+            body.put("error", "Logout failed");
+            body.put("message", "Token has no jti claim and cannot be revoked");
+            return ResponseEntity.badRequest().body(body);
+        }
+        if (claims != null) {
+            eventPublisher.publishEvent(new TokenRevokedEvent(claims.getId()));
+        }
+        body.put("message", "Logged out");
+        return ResponseEntity.ok(body);
+    }
+    
     @GetMapping("/roles")
     public ResponseEntity<?> getAvailableRoles() {
         Map<String, String[]> roles = new HashMap<>();
         roles.put("roles", new String[]{"USER", "DOCTOR"});
         return ResponseEntity.ok(roles);
     }
+    
+    // 认证框架可能包装异常，沿cause链查找哈希池拒绝
+    private PasswordHashingRejectedException findHashingRejection(Throwable e) {
+        while (e != null) {
+            if (e instanceof PasswordHashingRejectedException) {
+                return (PasswordHashingRejectedException) e;
+            }
+            e = e.getCause();
+        }
+        return null;
+    }
+    
+    private ResponseEntity<?> serviceBusy(PasswordHashingRejectedException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service busy");
+        error.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+    }
 }
\ No newline at end of file
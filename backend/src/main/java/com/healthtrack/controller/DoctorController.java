@@ -0,0 +1,59 @@
+package com.healthtrack.controller;
+
+import com.healthtrack.dto.DoctorSearchResult;
+import com.healthtrack.dto.DoctorSummary;
+import com.healthtrack.dto.KeysetPage;
+import com.healthtrack.service.DoctorSearchIndex;
+import com.healthtrack.service.DoctorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/doctors")
+public class DoctorController {
+    
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    @Autowired
+    private DoctorService doctorService;
+    
+    @Autowired
+    private DoctorSearchIndex doctorSearchIndex;
+    
+    // 键集分页：after传上一页返回的nextCursor，首页省略；不支持跳页，但任意深度的翻页开销相同
+    @GetMapping
+    public ResponseEntity<?> listDoctors(@RequestParam(required = false) Integer specialization,
+                                        @RequestParam(required = false) Boolean verified,
+                                        @RequestParam(defaultValue = "0") long after,
+                                        @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid page size");
+            error.put("message", "size must be between 1 and " + MAX_PAGE_SIZE);
+            return ResponseEntity.badRequest().body(error);
+        }
+        KeysetPage<DoctorSummary> page = doctorService.findDirectoryPage(specialization, verified, after, size);
+        return ResponseEntity.ok(page);
+    }
+    
+    // 姓名前缀 + 专科/认证状态筛选，由内存索引直接返回，不访问数据库
+    @GetMapping("/search")
+    public ResponseEntity<?> searchDoctors(@RequestParam(defaultValue = "") String name,
+                                          @RequestParam(required = false) Integer specialization,
+                                          @RequestParam(required = false) Boolean verified,
+                                          @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid limit");
+            error.put("message", "limit must be between 1 and " + MAX_PAGE_SIZE);
+            return ResponseEntity.badRequest().body(error);
+        }
+        DoctorSearchResult result = doctorSearchIndex.search(name, specialization, verified, limit);
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,176 @@
+package com.healthtrack.controller;
+
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.dto.RollupSeries;
+import com.healthtrack.entity.MetricType;
+import com.healthtrack.entity.User;
+import com.healthtrack.repository.AlertRepository;
+import com.healthtrack.security.JwtPrincipal;
+import com.healthtrack.security.JwtUtils;
+import com.healthtrack.service.CareTeamService;
+import com.healthtrack.service.LiveFeedFullException;
+import com.healthtrack.service.LiveFeedHub;
+import com.healthtrack.service.MeasurementIngestService;
+import com.healthtrack.service.MeasurementRollupService;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 医生工作台：当前医生名下的患者、患者读数查询与实时推送。
+ */
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/doctors/me")
+public class DoctorWorkspaceController {
+    
+    private static final int MAX_ALERT_PAGE_SIZE = 200;
+    
+    @Autowired
+    private CareTeamService careTeamService;
+    
+    @Autowired
+    private LiveFeedHub liveFeedHub;
+    
+    @Autowired
+    private AlertRepository alertRepository;
+    
+    @Autowired
+    private MeasurementIngestService ingestService;
+    
+    @Autowired
+    private MeasurementRollupService rollupService;
+    
+    @Autowired
+    private JwtUtils jwtUtils;
+    
+    @GetMapping("/patients")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<?> patients(Authentication authentication) {
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        List<Map<String, Object>> patients = new ArrayList<>();
+        for (User user : careTeamService.findPatients(principal.getId())) {
+            Map<String, Object> patient = new LinkedHashMap<>();
+            patient.put("id", user.getId());
+            patient.put("name", user.getName());
+            patient.put("healthId", user.getHealthId());
+            patients.add(patient);
+        }
+        return ResponseEntity.ok(patients);
+    }
+    
+    // 名下患者的原始读数，参数与响应同/api/measurements；推送断开后用于补齐断开期间的读数
+    @GetMapping("/patients/{healthId}/measurements")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<?> patientMeasurements(Authentication authentication,
+                                                 @PathVariable long healthId,
+                                                 @RequestParam MetricType metric,
+                                                 @RequestParam(required = false) Long from,
+                                                 @RequestParam(required = false) Long to,
+                                                 @RequestParam(defaultValue = "1000") int limit) {
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        if (!careTeamService.isPatientOf(principal.getId(), healthId)) {
+            return patientNotFound(healthId);
+        }
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - TimeUnit.DAYS.toMillis(1);
+        MeasurementBatch samples = ingestService.findRange(healthId, metric, start, end,
+                Math.max(1, Math.min(limit, MeasurementController.MAX_QUERY_LIMIT)));
+        return ResponseEntity.ok(MeasurementController.rangeBody(metric, samples));
+    }
+    
+    // 名下患者的图表查询，参数与响应同/api/measurements/rollup
+    @GetMapping("/patients/{healthId}/rollup")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<?> patientRollup(Authentication authentication,
+                                           @PathVariable long healthId,
+                                           @RequestParam MetricType metric,
+                                           @RequestParam(required = false) Long from,
+                                           @RequestParam(required = false) Long to,
+                                           @RequestParam(defaultValue = "300") int points) {
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        if (!careTeamService.isPatientOf(principal.getId(), healthId)) {
+            return patientNotFound(healthId);
+        }
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - TimeUnit.DAYS.toMillis(7);
+        if (start >= end) {
+            return error(HttpStatus.BAD_REQUEST, "Query failed", "from must be before to");
+        }
+        RollupSeries series = rollupService.query(healthId, metric, start, end,
+                Math.max(1, Math.min(points, MeasurementController.MAX_ROLLUP_POINTS)));
+        return ResponseEntity.ok(MeasurementController.rollupBody(metric, series));
+    }
+    
+    // 名下患者的告警，按id倒序；下一页传入本页最后一条的id作为before
+    @GetMapping("/alerts")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<?> alerts(Authentication authentication,
+                                    @RequestParam(defaultValue = "" + Long.MAX_VALUE) long before,
+                                    @RequestParam(defaultValue = "50") int size) {
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(alertRepository.findByDoctor(principal.getId(), before,
+                Math.max(1, Math.min(size, MAX_ALERT_PAGE_SIZE))));
+    }
+    
+    // text/event-stream：事件readings为名下患者新写入的读数，alert为触发的告警；连接在访问令牌过期或注销时关闭，需带新令牌重连。
+    // 返回类型必须声明为SseEmitter才会按异步事件流处理，错误响应因此由下方的异常处理方法生成
+    @GetMapping("/feed")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<SseEmitter> feed(Authentication authentication,
+                                           @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        // AuthTokenFilter已验签，这里命中已验签令牌缓存
+        Claims claims = jwtUtils.verifyJwtToken(authorization.substring("Bearer ".length()));
+        if (claims == null || claims.getExpiration() == null) {
+            throw new IllegalArgumentException("Token has no expiration");
+        }
+        SseEmitter emitter = liveFeedHub.subscribe(principal.getId(), claims.getId(), claims.getExpiration().getTime());
+        return ResponseEntity.ok()
+                // 禁止反向代理缓冲事件流
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+    
+    @ExceptionHandler(LiveFeedFullException.class)
+    public ResponseEntity<?> feedFull(LiveFeedFullException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service busy");
+        error.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(error);
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> subscriptionRejected(IllegalArgumentException e) {
+        return error(HttpStatus.UNAUTHORIZED, "Subscription failed", e.getMessage());
+    }
+    
+    // 不是本医生名下的患者与不存在的患者返回同样的404，不暴露healthId是否存在
+    private static ResponseEntity<?> patientNotFound(long healthId) {
+        return error(HttpStatus.NOT_FOUND, "Query failed", "No patient with healthId " + healthId + " under this doctor");
+    }
+    
+    private static ResponseEntity<?> error(HttpStatus status, String error, String message) {
+        Map<String, String> body = new HashMap<>();
+        body.put("error", error);
+        body.put("message", message);
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -0,0 +1,179 @@
+package com.healthtrack.controller;
+
+import com.healthtrack.dto.IngestReport;
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.dto.RollupBucket;
+import com.healthtrack.dto.RollupSeries;
+import com.healthtrack.entity.MetricType;
+import com.healthtrack.entity.User;
+import com.healthtrack.security.JwtPrincipal;
+import com.healthtrack.service.MeasurementBufferFullException;
+import com.healthtrack.service.MeasurementIngestService;
+import com.healthtrack.service.MeasurementRollupService;
+import com.healthtrack.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 体征读数接口，读数归属于当前用户的healthId。
+ */
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/measurements")
+public class MeasurementController {
+    
+    static final int MAX_QUERY_LIMIT = 10000;
+    static final int MAX_ROLLUP_POINTS = 2000;
+    
+    @Autowired
+    private MeasurementIngestService ingestService;
+    
+    @Autowired
+    private MeasurementRollupService rollupService;
+    
+    @Autowired
+    private UserService userService;
+    
+    // 请求体流式解析，返回202：读数已进入写入缓冲，稍后落库
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> ingest(Authentication authentication, HttpServletRequest request) {
+        Long healthId = currentHealthId(authentication);
+        if (healthId == null) {
+            return error(HttpStatus.BAD_REQUEST, "Ingestion failed", "Account has no healthId");
+        }
+        try {
+            IngestReport report = ingestService.ingest(healthId, request.getInputStream());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(report);
+        } catch (MeasurementBufferFullException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Service busy");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(error);
+        } catch (IOException | IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "Ingestion failed", e.getMessage());
+        }
+    }
+    
+    // from/to为毫秒时间戳，默认最近24小时
+    @GetMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> query(Authentication authentication,
+                                   @RequestParam MetricType metric,
+                                   @RequestParam(required = false) Long from,
+                                   @RequestParam(required = false) Long to,
+                                   @RequestParam(defaultValue = "1000") int limit) {
+        Long healthId = currentHealthId(authentication);
+        if (healthId == null) {
+            return error(HttpStatus.BAD_REQUEST, "Query failed", "Account has no healthId");
+        }
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - TimeUnit.DAYS.toMillis(1);
+        MeasurementBatch samples = ingestService.findRange(healthId, metric, start, end,
+                Math.max(1, Math.min(limit, MAX_QUERY_LIMIT)));
+        return ResponseEntity.ok(rangeBody(metric, samples));
+    }
+    
+    // 图表用的降采样查询：按points自动选择预聚合粒度，from/to默认为最近7天
+    @GetMapping("/rollup")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> rollup(Authentication authentication,
+                                    @RequestParam MetricType metric,
+                                    @RequestParam(required = false) Long from,
+                                    @RequestParam(required = false) Long to,
+                                    @RequestParam(defaultValue = "300") int points) {
+        Long healthId = currentHealthId(authentication);
+        if (healthId == null) {
+            return error(HttpStatus.BAD_REQUEST, "Query failed", "Account has no healthId");
+        }
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - TimeUnit.DAYS.toMillis(7);
+        if (start >= end) {
+            return error(HttpStatus.BAD_REQUEST, "Query failed", "from must be before to");
+        }
+        RollupSeries series = rollupService.query(healthId, metric, start, end,
+                Math.max(1, Math.min(points, MAX_ROLLUP_POINTS)));
+        return ResponseEntity.ok(rollupBody(metric, series));
+    }
+    
+    /**
+     * 原始读数的响应体，医生工作台查询名下患者时共用
+     */
+    static Map<String, Object> rangeBody(MetricType metric, MeasurementBatch samples) {
+        long[] timestamps = new long[samples.size()];
+        double[] values = new double[samples.size()];
+        for (int i = 0; i < samples.size(); i++) {
+            timestamps[i] = samples.getTimestamp(i);
+            values[i] = samples.getValue(i);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("metric", metric);
+        response.put("unit", metric.getUnit());
+        response.put("timestamps", timestamps);
+        response.put("values", values);
+        return response;
+    }
+    
+    /**
+     * 预聚合查询的响应体，医生工作台查询名下患者时共用
+     */
+    static Map<String, Object> rollupBody(MetricType metric, RollupSeries series) {
+        List<RollupBucket> buckets = series.getBuckets();
+        int n = buckets.size();
+        long[] timestamps = new long[n];
+        double[] min = new double[n];
+        double[] max = new double[n];
+        double[] avg = new double[n];
+        long[] count = new long[n];
+        double[] last = new double[n];
+        for (int i = 0; i < n; i++) {
+            RollupBucket bucket = buckets.get(i);
+            timestamps[i] = bucket.getBucketStart();
+            min[i] = bucket.getMin();
+            max[i] = bucket.getMax();
+            avg[i] = bucket.getAverage();
+            count[i] = bucket.getCount();
+            last[i] = bucket.getLast();
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("metric", metric);
+        response.put("unit", metric.getUnit());
+        response.put("resolution", series.getResolution());
+        response.put("stepMillis", series.getStepMillis());
+        response.put("timestamps", timestamps);
+        response.put("min", min);
+        response.put("max", max);
+        response.put("avg", avg);
+        response.put("count", count);
+        response.put("last", last);
+        return response;
+    }
+    
+    private Long currentHealthId(Authentication authentication) {
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        return userService.findById(principal.getId()).map(User::getHealthId).orElse(null);
+    }
+    
+    private static ResponseEntity<?> error(HttpStatus status, String error, String message) {
+        Map<String, String> body = new HashMap<>();
+        body.put("error", error);
+        body.put("message", message);
+        return ResponseEntity.status(status).body(body);
+    }
+}
@@ -1,6 +1,11 @@
 package com.healthtrack.controller;
 
+import com.healthtrack.entity.Doctor;
 import com.healthtrack.entity.User;
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.security.JwtPrincipal;
+import com.healthtrack.service.AccountAvailabilityIndex;
+import com.healthtrack.service.DoctorService;
 import com.healthtrack.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -19,26 +24,53 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private DoctorService doctorService;
+    
+    @Autowired
+    private AccountAvailabilityIndex availabilityIndex;
+    
     @GetMapping("/profile")
     @PreAuthorize("hasRole('USER') or hasRole('DOCTOR')")
     public ResponseEntity<?> getUserProfile(Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
         
         Map<String, Object> profile = new HashMap<>();
-        profile.put("id", user.getId());
-        profile.put("name", user.getName());
-        profile.put("username", user.getUsername());
-        profile.put("phone", user.getPhone());
-        profile.put("healthId", user.getHealthId());
-        profile.put("role", "USER");
-        profile.put("createdAt", user.getCreatedAt());
+        if (principal.getUserType() == UserRole.DOCTOR) {
+            Doctor doctor = doctorService.findById(principal.getId()).orElse(null);
+            if (doctor == null) {
+                return ResponseEntity.notFound().build();
+            }
+            profile.put("id", doctor.getId());
+            profile.put("name", doctor.getName());
+            profile.put("username", doctor.getUsername());
+            profile.put("phone", doctor.getPhone());
+            profile.put("licenseId", doctor.getLicenseId());
+            profile.put("specialization", doctor.getSpecialization());
+            profile.put("verified", doctor.getVerified());
+            profile.put("role", "DOCTOR");
+            profile.put("createdAt", doctor.getCreatedAt());
+        } else {
+            User user = userService.findById(principal.getId()).orElse(null);
+            if (user == null) {
+                return ResponseEntity.notFound().build();
+            }
+            profile.put("id", user.getId());
+            profile.put("name", user.getName());
+            profile.put("username", user.getUsername());
+            profile.put("phone", user.getPhone());
+            profile.put("healthId", user.getHealthId());
+            profile.put("role", "USER");
+            profile.put("createdAt", user.getCreatedAt());
+        }
         
         return ResponseEntity.ok(profile);
     }
     
     @GetMapping("/check-username")
-    public ResponseEntity<?> checkUsernameExists(@RequestParam String username) {
-        boolean exists = userService.existsByUsername(username);
+    public ResponseEntity<?> checkUsernameExists(@RequestParam String username,
+                                                 @RequestParam(defaultValue = "USER") String userType) {
+        boolean exists = availabilityIndex.usernameExists(username, "DOCTOR".equals(userType));
         Map<String, Boolean> response = new HashMap<>();
         response.put("exists", exists);
         return ResponseEntity.ok(response);
@@ -46,15 +78,16 @@ public class UserController {
     
     @GetMapping("/check-health-id")
     public ResponseEntity<?> checkHealthIdExists(@RequestParam Long healthId) {
-        boolean exists = userService.existsByHealthId(healthId);
+        boolean exists = availabilityIndex.healthIdExists(healthId);
         Map<String, Boolean> response = new HashMap<>();
         response.put("exists", exists);
         return ResponseEntity.ok(response);
     }
     
     @GetMapping("/check-phone")
-    public ResponseEntity<?> checkPhoneExists(@RequestParam String phone) {
-        boolean exists = userService.existsByPhone(phone);
+    public ResponseEntity<?> checkPhoneExists(@RequestParam String phone,
+                                              @RequestParam(defaultValue = "USER") String userType) {
+        boolean exists = availabilityIndex.phoneExists(phone, "DOCTOR".equals(userType));
         Map<String, Boolean> response = new HashMap<>();
         response.put("exists", exists);
         return ResponseEntity.ok(response);
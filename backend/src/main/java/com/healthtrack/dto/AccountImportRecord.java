@@ -0,0 +1,90 @@
+package com.healthtrack.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * 批量导入中的一行，CSV列名或NDJSON字段名与属性名一致（也接受下划线形式）。
+ */
+public class AccountImportRecord {
+    
+    private String username;
+    private String password;
+    private String name;
+    private String phone;
+    @JsonAlias("health_id")
+    private Long healthId;
+    
+    @JsonAlias("license_id")
+    private Long licenseId;
+    
+    private Integer specialization;
+    
+    @JsonIgnore
+    private long line;
+    
+    // Getters and Setters
+    public String getUsername() {
+        return username;
+    }
+    
+    public void setUsername(String username) {
+        this.username = username;
+    }
+    
+    public String getPassword() {
+        return password;
+    }
+    
+    public void setPassword(String password) {
+        this.password = password;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getPhone() {
+        return phone;
+    }
+    
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+    
+    public Long getHealthId() {
+        return healthId;
+    }
+    
+    public void setHealthId(Long healthId) {
+        this.healthId = healthId;
+    }
+    
+    public Long getLicenseId() {
+        return licenseId;
+    }
+    
+    public void setLicenseId(Long licenseId) {
+        this.licenseId = licenseId;
+    }
+    
+    public Integer getSpecialization() {
+        return specialization;
+    }
+    
+    public void setSpecialization(Integer specialization) {
+        this.specialization = specialization;
+    }
+    
+    public long getLine() {
+        return line;
+    }
+    
+    public void setLine(long line) {
+        this.line = line;
+    }
+}
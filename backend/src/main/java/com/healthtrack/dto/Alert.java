@@ -0,0 +1,95 @@
+package com.healthtrack.dto;
+
+import com.healthtrack.entity.MetricType;
+
+/**
+ * 一次触发的告警。value为触发时的读数或聚合值（slope为每天的变化量），triggeredAt为触发读数的时间戳（毫秒）。
+ */
+public class Alert {
+    
+    private Long id;
+    private long healthId;
+    private Long doctorId;
+    private String rule;
+    private String expression;
+    private MetricType metric;
+    private double value;
+    private long triggeredAt;
+    
+    // Constructors
+    public Alert() {}
+    
+    public Alert(long healthId, String rule, String expression, MetricType metric, double value, long triggeredAt) {
+        this.healthId = healthId;
+        this.rule = rule;
+        this.expression = expression;
+        this.metric = metric;
+        this.value = value;
+        this.triggeredAt = triggeredAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public long getHealthId() {
+        return healthId;
+    }
+    
+    public void setHealthId(long healthId) {
+        this.healthId = healthId;
+    }
+    
+    public Long getDoctorId() {
+        return doctorId;
+    }
+    
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+    
+    public String getRule() {
+        return rule;
+    }
+    
+    public void setRule(String rule) {
+        this.rule = rule;
+    }
+    
+    public String getExpression() {
+        return expression;
+    }
+    
+    public void setExpression(String expression) {
+        this.expression = expression;
+    }
+    
+    public MetricType getMetric() {
+        return metric;
+    }
+    
+    public void setMetric(MetricType metric) {
+        this.metric = metric;
+    }
+    
+    public double getValue() {
+        return value;
+    }
+    
+    public void setValue(double value) {
+        this.value = value;
+    }
+    
+    public long getTriggeredAt() {
+        return triggeredAt;
+    }
+    
+    public void setTriggeredAt(long triggeredAt) {
+        this.triggeredAt = triggeredAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.healthtrack.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 医生检索结果：命中总数、前N条结果，以及专科与认证状态的分面计数。
+ */
+public class DoctorSearchResult {
+    
+    private final long total;
+    private final List<DoctorSummary> items;
+    private final Map<Integer, Long> specializationCounts;
+    private final Map<Boolean, Long> verifiedCounts;
+    
+    public DoctorSearchResult(long total, List<DoctorSummary> items,
+                              Map<Integer, Long> specializationCounts, Map<Boolean, Long> verifiedCounts) {
+        this.total = total;
+        this.items = items;
+        this.specializationCounts = specializationCounts;
+        this.verifiedCounts = verifiedCounts;
+    }
+    
+    public long getTotal() {
+        return total;
+    }
+    
+    public List<DoctorSummary> getItems() {
+        return items;
+    }
+    
+    public Map<Integer, Long> getSpecializationCounts() {
+        return specializationCounts;
+    }
+    
+    public Map<Boolean, Long> getVerifiedCounts() {
+        return verifiedCounts;
+    }
+}
@@ -0,0 +1,55 @@
+package com.healthtrack.dto;
+
+/**
+ * 医生目录中的一项，只包含公开字段；由JPQL构造表达式直接生成，不加载密码等列。
+ */
+public class DoctorSummary {
+    
+    private Long id;
+    private String name;
+    private Integer specialization;
+    private Boolean verified;
+    
+    // Constructors
+    public DoctorSummary() {}
+    
+    public DoctorSummary(Long id, String name, Integer specialization, Boolean verified) {
+        this.id = id;
+        this.name = name;
+        this.specialization = specialization;
+        this.verified = verified;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public Integer getSpecialization() {
+        return specialization;
+    }
+    
+    public void setSpecialization(Integer specialization) {
+        this.specialization = specialization;
+    }
+    
+    public Boolean getVerified() {
+        return verified;
+    }
+    
+    public void setVerified(Boolean verified) {
+        this.verified = verified;
+    }
+}
@@ -0,0 +1,138 @@
+package com.healthtrack.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入结果：单个批次失败只回滚该批次，其余批次照常提交。
+ */
+public class ImportReport {
+    
+    private String userType;
+    private long totalRows;
+    private long imported;
+    private long rejectedRows;
+    private long failedRows;
+    private long elapsedMs;
+    private final List<RowError> rowErrors = new ArrayList<>();
+    private final List<BatchFailure> batchFailures = new ArrayList<>();
+    
+    // Constructors
+    public ImportReport() {}
+    
+    public ImportReport(String userType) {
+        this.userType = userType;
+    }
+    
+    public void addRowError(long line, String message, int maxRowErrors) {
+        rejectedRows++;
+        // 只保留前若干条明细，避免整份文件格式错误时报告本身过大
+        if (rowErrors.size() < maxRowErrors) {
+            rowErrors.add(new RowError(line, message));
+        }
+    }
+    
+    public void addBatchFailure(int batch, long firstLine, long lastLine, int rows, String message) {
+        failedRows += rows;
+        batchFailures.add(new BatchFailure(batch, firstLine, lastLine, rows, message));
+    }
+    
+    public void addImported(long rows) {
+        imported += rows;
+    }
+    
+    public void incrementTotalRows() {
+        totalRows++;
+    }
+    
+    // Getters and Setters
+    public String getUserType() {
+        return userType;
+    }
+    
+    public long getTotalRows() {
+        return totalRows;
+    }
+    
+    public long getImported() {
+        return imported;
+    }
+    
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+    
+    public long getFailedRows() {
+        return failedRows;
+    }
+    
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+    
+    public List<RowError> getRowErrors() {
+        return rowErrors;
+    }
+    
+    public List<BatchFailure> getBatchFailures() {
+        return batchFailures;
+    }
+    
+    public static class RowError {
+        private final long line;
+        private final String message;
+        
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+        
+        public long getLine() {
+            return line;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+    }
+    
+    public static class BatchFailure {
+        private final int batch;
+        private final long firstLine;
+        private final long lastLine;
+        private final int rows;
+        private final String message;
+        
+        public BatchFailure(int batch, long firstLine, long lastLine, int rows, String message) {
+            this.batch = batch;
+            this.firstLine = firstLine;
+            this.lastLine = lastLine;
+            this.rows = rows;
+            this.message = message;
+        }
+        
+        public int getBatch() {
+            return batch;
+        }
+        
+        public long getFirstLine() {
+            return firstLine;
+        }
+        
+        public long getLastLine() {
+            return lastLine;
+        }
+        
+        public int getRows() {
+            return rows;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.healthtrack.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读数上报结果：格式正确但取值越界或时间异常的读数被逐条拒绝，其余读数已进入写入缓冲。
+ */
+public class IngestReport {
+    
+    private int accepted;
+    private int rejected;
+    private final List<SampleError> errors = new ArrayList<>();
+    
+    public void addError(int index, String message, int maxErrors) {
+        rejected++;
+        if (errors.size() < maxErrors) {
+            errors.add(new SampleError(index, message));
+        }
+    }
+    
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+    
+    public int getAccepted() {
+        return accepted;
+    }
+    
+    public int getRejected() {
+        return rejected;
+    }
+    
+    public List<SampleError> getErrors() {
+        return errors;
+    }
+    
+    public static class SampleError {
+        private final int index;
+        private final String message;
+        
+        public SampleError(int index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+        
+        public int getIndex() {
+            return index;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+    }
+}
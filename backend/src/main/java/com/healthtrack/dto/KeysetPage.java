@@ -0,0 +1,25 @@
+package com.healthtrack.dto;
+
+import java.util.List;
+
+/**
+ * 键集分页结果：nextCursor为本页最后一项的id，作为下一页的after参数；为null表示没有更多数据。
+ */
+public class KeysetPage<T> {
+    
+    private final List<T> items;
+    private final Long nextCursor;
+    
+    public KeysetPage(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,98 @@
+package com.healthtrack.dto;
+
+import com.healthtrack.entity.MetricType;
+
+import java.util.Arrays;
+
+/**
+ * 同一用户的一批读数，按列存放在基本类型数组中，几千条读数只占几个数组而不是几千个对象。
+ */
+public class MeasurementBatch {
+    
+    private final long healthId;
+    private MetricType[] metrics;
+    private long[] timestamps;
+    private double[] values;
+    private int size;
+    
+    public MeasurementBatch(long healthId, int initialCapacity) {
+        this.healthId = healthId;
+        int capacity = Math.max(1, initialCapacity);
+        this.metrics = new MetricType[capacity];
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+    }
+    
+    public void add(MetricType metric, long timestamp, double value) {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            metrics = Arrays.copyOf(metrics, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        metrics[size] = metric;
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+    
+    /**
+     * 按(指标编码, 时间戳)排序，即measurement表主键中该用户部分的顺序；已有序时不做任何拷贝。
+     */
+    public void sort() {
+        if (isSorted()) {
+            return;
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(a, b));
+        MetricType[] sortedMetrics = new MetricType[metrics.length];
+        long[] sortedTimestamps = new long[timestamps.length];
+        double[] sortedValues = new double[values.length];
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            sortedMetrics[i] = metrics[from];
+            sortedTimestamps[i] = timestamps[from];
+            sortedValues[i] = values[from];
+        }
+        metrics = sortedMetrics;
+        timestamps = sortedTimestamps;
+        values = sortedValues;
+    }
+    
+    private boolean isSorted() {
+        for (int i = 1; i < size; i++) {
+            if (compare(i - 1, i) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private int compare(int a, int b) {
+        int byMetric = Integer.compare(metrics[a].getCode(), metrics[b].getCode());
+        return byMetric != 0 ? byMetric : Long.compare(timestamps[a], timestamps[b]);
+    }
+    
+    public long getHealthId() {
+        return healthId;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public MetricType getMetric(int index) {
+        return metrics[index];
+    }
+    
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+    
+    public double getValue(int index) {
+        return values[index];
+    }
+}
@@ -0,0 +1,83 @@
+package com.healthtrack.dto;
+
+/**
+ * 一个时间桶内读数的min、max、sum、count与最后一条读数。桶之间可以合并，因此既用于写入时的累加，也用于查询时的降采样。
+ */
+public class RollupBucket {
+    
+    private final long bucketStart;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double sum;
+    private long count;
+    private long lastAt = Long.MIN_VALUE;
+    private double last;
+    
+    public RollupBucket(long bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+    
+    public RollupBucket(long bucketStart, double min, double max, double sum, long count, long lastAt, double last) {
+        this.bucketStart = bucketStart;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.count = count;
+        this.lastAt = lastAt;
+        this.last = last;
+    }
+    
+    public void add(long timestamp, double value) {
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+        count++;
+        if (timestamp >= lastAt) {
+            lastAt = timestamp;
+            last = value;
+        }
+    }
+    
+    public void merge(RollupBucket other) {
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+        count += other.count;
+        if (other.lastAt >= lastAt) {
+            lastAt = other.lastAt;
+            last = other.last;
+        }
+    }
+    
+    public long getBucketStart() {
+        return bucketStart;
+    }
+    
+    public double getMin() {
+        return min;
+    }
+    
+    public double getMax() {
+        return max;
+    }
+    
+    public double getSum() {
+        return sum;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public double getAverage() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+    
+    public long getLastAt() {
+        return lastAt;
+    }
+    
+    public double getLast() {
+        return last;
+    }
+}
@@ -0,0 +1,33 @@
+package com.healthtrack.dto;
+
+import com.healthtrack.entity.RollupResolution;
+
+import java.util.List;
+
+/**
+ * 降采样查询结果：buckets按时间升序，每个桶宽stepMillis，由resolution粒度的预聚合桶合并而来。空桶不返回。
+ */
+public class RollupSeries {
+    
+    private final RollupResolution resolution;
+    private final long stepMillis;
+    private final List<RollupBucket> buckets;
+    
+    public RollupSeries(RollupResolution resolution, long stepMillis, List<RollupBucket> buckets) {
+        this.resolution = resolution;
+        this.stepMillis = stepMillis;
+        this.buckets = buckets;
+    }
+    
+    public RollupResolution getResolution() {
+        return resolution;
+    }
+    
+    public long getStepMillis() {
+        return stepMillis;
+    }
+    
+    public List<RollupBucket> getBuckets() {
+        return buckets;
+    }
+}
@@ -1,6 +1,11 @@
 package com.healthtrack.entity;
 
+import com.healthtrack.service.DoctorSearchIndexListener;
 import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import javax.validation.constraints.NotBlank;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -11,13 +16,26 @@ import java.util.Collections;
 import java.util.Collection;
 
 @Entity
-@Table(name = "system_provider")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@EntityListeners(DoctorSearchIndexListener.class)
+@Table(name = "system_provider", indexes = {
+        // 医生目录键集分页所需的复合索引，均以id结尾以便按id顺序扫描
+        @Index(name = "idx_provider_role_verified_id", columnList = "role, is_verified, id"),
+        @Index(name = "idx_provider_role_id", columnList = "role, id"),
+        @Index(name = "idx_provider_verified_id", columnList = "is_verified, id")
+})
 public class Doctor implements UserDetails {
     
+    // 号段式主键：每次从id_generator表预取50个，IDENTITY会使Hibernate无法批量插入
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "doctor_id")
+    @TableGenerator(name = "doctor_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "system_provider", allocationSize = 50)
     private Long id;
     
+    @NaturalId(mutable = true)
     @NotBlank
     @Column(name = "username", unique = true, nullable = false)
     private String username;
@@ -35,7 +53,7 @@ public class Doctor implements UserDetails {
     @Column(name = "phone", unique = true)
     private String phone;
     
-    @Column(name = "role")
+    @Column(name = "role", columnDefinition = "TINYINT")
     private Integer specialization; // 医生的类别，使用数字编码
     
     @Column(name = "is_verified")
@@ -0,0 +1,56 @@
+package com.healthtrack.entity;
+
+/**
+ * 体征指标类型。code写入measurement表，一经发布不可修改；血压拆成收缩压与舒张压两个指标。
+ * 取值范围用于拒绝明显错误的读数（设备故障、单位错误），不是临床正常范围。
+ */
+public enum MetricType {
+    HEART_RATE(1, "bpm", 20, 250),
+    STEPS(2, "count", 0, 100000),
+    SYSTOLIC_PRESSURE(3, "mmHg", 50, 260),
+    DIASTOLIC_PRESSURE(4, "mmHg", 30, 180),
+    WEIGHT(5, "kg", 1, 500),
+    BLOOD_GLUCOSE(6, "mmol/L", 1, 40),
+    OXYGEN_SATURATION(7, "%", 50, 100),
+    BODY_TEMPERATURE(8, "°C", 30, 45);
+    
+    private static final MetricType[] BY_CODE = new MetricType[16];
+    
+    static {
+        for (MetricType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+    
+    private final int code;
+    private final String unit;
+    private final double min;
+    private final double max;
+    
+    MetricType(int code, String unit, double min, double max) {
+        this.code = code;
+        this.unit = unit;
+        this.min = min;
+        this.max = max;
+    }
+    
+    public int getCode() {
+        return code;
+    }
+    
+    public String getUnit() {
+        return unit;
+    }
+    
+    public boolean accepts(double value) {
+        return value >= min && value <= max;
+    }
+    
+    public static MetricType fromCode(int code) {
+        MetricType type = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown metric code: " + code);
+        }
+        return type;
+    }
+}
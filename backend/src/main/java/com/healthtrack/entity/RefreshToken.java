@@ -0,0 +1,101 @@
+package com.healthtrack.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 刷新令牌。只保存令牌的SHA-256摘要；同一次登录轮换出的令牌共用family_id，
+ * 已轮换的令牌再次出现时整个family作废。
+ */
+@Entity
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_token_expires_at", columnList = "expires_at")
+})
+public class RefreshToken {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "token_hash", length = 64, nullable = false, unique = true)
+    private String tokenHash;
+    
+    @Column(name = "family_id", length = 36, nullable = false)
+    private String familyId;
+    
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    
+    @Column(name = "username", nullable = false)
+    private String username;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "user_type", length = 16, nullable = false)
+    private UserRole userType;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    // 已轮换或已作废
+    @Column(name = "used", nullable = false)
+    private boolean used;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    // Constructors
+    public RefreshToken() {}
+    
+    public RefreshToken(String tokenHash, String familyId, Long accountId, String username, UserRole userType,
+                        LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.accountId = accountId;
+        this.username = username;
+        this.userType = userType;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public String getTokenHash() {
+        return tokenHash;
+    }
+    
+    public String getFamilyId() {
+        return familyId;
+    }
+    
+    public Long getAccountId() {
+        return accountId;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public UserRole getUserType() {
+        return userType;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public boolean isUsed() {
+        return used;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,46 @@
+package com.healthtrack.entity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预聚合的时间粒度。code写入measurement_rollup表，一经发布不可修改；桶按UTC对齐。
+ */
+public enum RollupResolution {
+    MINUTE(1, TimeUnit.MINUTES.toMillis(1)),
+    HOUR(2, TimeUnit.HOURS.toMillis(1)),
+    DAY(3, TimeUnit.DAYS.toMillis(1));
+    
+    private static final RollupResolution[] VALUES = values();
+    
+    private final int code;
+    private final long millis;
+    
+    RollupResolution(int code, long millis) {
+        this.code = code;
+        this.millis = millis;
+    }
+    
+    public int getCode() {
+        return code;
+    }
+    
+    public long getMillis() {
+        return millis;
+    }
+    
+    public long bucketStart(long timestamp) {
+        return Math.floorDiv(timestamp, millis) * millis;
+    }
+    
+    /**
+     * 不超过step的最粗粒度；step小于1分钟时返回MINUTE。
+     */
+    public static RollupResolution coarsestWithin(long step) {
+        for (int i = VALUES.length - 1; i > 0; i--) {
+            if (VALUES[i].millis <= step) {
+                return VALUES[i];
+            }
+        }
+        return VALUES[0];
+    }
+}
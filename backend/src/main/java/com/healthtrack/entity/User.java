@@ -1,6 +1,10 @@
 package com.healthtrack.entity;
 
 import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import javax.validation.constraints.NotBlank;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -13,13 +17,20 @@ import java.util.Collections;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Table(name = "system_user")
 public class User implements UserDetails {
     
+    // 号段式主键：每次从id_generator表预取50个，IDENTITY会使Hibernate无法批量插入
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @TableGenerator(name = "user_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "system_user", allocationSize = 50)
     private Long id;
     
+    @NaturalId(mutable = true)
     @NotBlank
     @Column(name = "username", unique = true, nullable = false)
     private String username;
@@ -31,6 +42,10 @@ public class User implements UserDetails {
     @Column(name = "health_id", unique = true)
     private Long healthId;
     
+    // 主治医生（system_provider.id），只保存主键，避免加载用户时连带加载医生
+    @Column(name = "doctor_id")
+    private Long doctorId;
+    
     @Column(name = "name")
     private String name;
     
@@ -130,6 +145,14 @@ public class User implements UserDetails {
         this.healthId = healthId;
     }
     
+    public Long getDoctorId() {
+        return doctorId;
+    }
+    
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+    
     public String getPhone() {
         return phone;
     }
@@ -0,0 +1,54 @@
+package com.healthtrack.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+/**
+ * 请求头 X-Sql-Trace 与配置的口令一致时，为该请求开启SQL与绑定参数日志，
+ * 日志中的sqlTrace字段与响应头 X-Sql-Trace-Id 相同，便于检索。未配置口令时不生效。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SqlTraceFilter extends OncePerRequestFilter {
+    
+    static final String HEADER = "X-Sql-Trace";
+    static final String TRACE_ID_HEADER = "X-Sql-Trace-Id";
+    
+    @Value("${logging.sql-trace.token:}")
+    private String token;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return token.isEmpty() || request.getHeader(HEADER) == null;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                request.getHeader(HEADER).getBytes(StandardCharsets.UTF_8))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String traceId = UUID.randomUUID().toString();
+        response.setHeader(TRACE_ID_HEADER, traceId);
+        SqlTraceTurboFilter.begin(traceId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlTraceTurboFilter.end();
+        }
+    }
+}
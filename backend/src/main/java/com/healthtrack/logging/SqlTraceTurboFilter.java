@@ -0,0 +1,48 @@
+package com.healthtrack.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按请求开启的SQL日志通道。生产环境中SQL与绑定参数日志保持WARN级别，
+ * 被SqlTraceFilter标记的请求线程上，这些日志绕过级别判断直接输出。
+ * 在logback-spring.xml中注册；没有被标记的请求时只做一次volatile读。
+ */
+public class SqlTraceTurboFilter extends TurboFilter {
+    
+    static final String MDC_KEY = "sqlTrace";
+    
+    private static final String SQL_LOGGER = "org.hibernate.SQL";
+    private static final String BINDER_LOGGER_PREFIX = "org.hibernate.type.descriptor.sql.";
+    
+    // 当前被标记的请求数
+    private static final AtomicInteger active = new AtomicInteger();
+    
+    static void begin(String traceId) {
+        MDC.put(MDC_KEY, traceId);
+        active.incrementAndGet();
+    }
+    
+    static void end() {
+        active.decrementAndGet();
+        MDC.remove(MDC_KEY);
+    }
+    
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (active.get() == 0 || MDC.get(MDC_KEY) == null) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        if (name.equals(SQL_LOGGER) || name.startsWith(BINDER_LOGGER_PREFIX)) {
+            return FilterReply.ACCEPT;
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
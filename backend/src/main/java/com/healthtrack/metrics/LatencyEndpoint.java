@@ -0,0 +1,93 @@
+package com.healthtrack.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * /actuator/latency：各接口分阶段的p50/p99/p999（毫秒），以及缓存命中与拒绝类计数器。
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+    
+    // 除healthtrack.*外一并输出的Hibernate缓存计数器
+    private static final String[] HIBERNATE_CACHE_COUNTERS = {
+            "hibernate.second.level.cache.requests",
+            "hibernate.cache.natural.id.requests",
+            "hibernate.cache.query.requests"
+    };
+    
+    @Autowired
+    private LatencyRecorder latencyRecorder;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @ReadOperation
+    public Map<String, Object> latency() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoints", latencyRecorder.snapshot());
+        result.put("counters", counters());
+        return result;
+    }
+    
+    @DeleteOperation
+    public void reset() {
+        latencyRecorder.reset();
+    }
+    
+    private Map<String, Double> counters() {
+        Map<String, Double> counters = new TreeMap<>();
+        for (Meter meter : meterRegistry.getMeters()) {
+            String name = meter.getId().getName();
+            if (!name.startsWith("healthtrack.") && !isHibernateCacheCounter(name)) {
+                continue;
+            }
+            double count;
+            if (meter instanceof Counter) {
+                count = ((Counter) meter).count();
+            } else if (meter instanceof FunctionCounter) {
+                count = ((FunctionCounter) meter).count();
+            } else {
+                continue;
+            }
+            counters.put(describe(meter), count);
+        }
+        return counters;
+    }
+    
+    private static boolean isHibernateCacheCounter(String name) {
+        for (String counter : HIBERNATE_CACHE_COUNTERS) {
+            if (counter.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // 形如 healthtrack.login.rate.limited{key=ip}
+    private static String describe(Meter meter) {
+        StringBuilder builder = new StringBuilder(meter.getId().getName());
+        boolean first = true;
+        for (Tag tag : meter.getId().getTagsAsIterable()) {
+            if ("name".equals(tag.getKey()) && "default".equals(tag.getValue())) {
+                continue;
+            }
+            builder.append(first ? '{' : ',').append(tag.getKey()).append('=').append(tag.getValue());
+            first = false;
+        }
+        return first ? builder.toString() : builder.append('}').toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.healthtrack.metrics;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 最外层过滤器：开启当前线程的阶段计时，请求结束后按映射到的路径模板写入直方图。
+ * 异步请求只统计到处理器返回为止。
+ */
+public class LatencyFilter extends OncePerRequestFilter {
+    
+    private final LatencyRecorder latencyRecorder;
+    
+    public LatencyFilter(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long[] elapsed = RequestPhase.begin();
+        long startedAt = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestPhase.TOTAL.record(System.nanoTime() - startedAt);
+            RequestPhase.end(elapsed);
+            latencyRecorder.record((String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+                    request.getRequestURI(), elapsed);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.healthtrack.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtrack.security.JwtUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * 把各阶段计时接入请求链路：最外层的LatencyFilter、所有Spring Data仓库代理、Jackson响应序列化。
+ */
+@Configuration
+public class LatencyInstrumentationConfig {
+    
+    @Bean
+    public FilterRegistrationBean<LatencyFilter> latencyFilter(LatencyRecorder latencyRecorder) {
+        FilterRegistrationBean<LatencyFilter> registration = new FilterRegistrationBean<>(new LatencyFilter(latencyRecorder));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+    
+    // 仓库方法（含自定义片段）统一计入REPOSITORY阶段
+    @Bean
+    public static BeanPostProcessor repositoryTimingPostProcessor() {
+        MethodInterceptor interceptor = invocation -> {
+            long startedAt = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                RequestPhase.REPOSITORY.record(System.nanoTime() - startedAt);
+            }
+        };
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, information) ->
+                                    proxyFactory.addAdvice(interceptor)));
+                }
+                return bean;
+            }
+        };
+    }
+    
+    // 替换Spring Boot默认的Jackson转换器，响应体写出计入SERIALIZATION阶段
+    @Bean
+    public MappingJackson2HttpMessageConverter timedJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                long startedAt = System.nanoTime();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    RequestPhase.SERIALIZATION.record(System.nanoTime() - startedAt);
+                }
+            }
+        };
+    }
+    
+    @Bean
+    public FunctionCounter jwtCacheHitCounter(JwtUtils jwtUtils, MeterRegistry meterRegistry) {
+        return FunctionCounter.builder("healthtrack.jwt.cache.requests", jwtUtils, JwtUtils::getCacheHits)
+                .tag("result", "hit")
+                .register(meterRegistry);
+    }
+    
+    @Bean
+    public FunctionCounter jwtCacheMissCounter(JwtUtils jwtUtils, MeterRegistry meterRegistry) {
+        return FunctionCounter.builder("healthtrack.jwt.cache.requests", jwtUtils, JwtUtils::getCacheMisses)
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+}
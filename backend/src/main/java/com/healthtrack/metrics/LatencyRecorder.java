@@ -0,0 +1,120 @@
+package com.healthtrack.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按接口与阶段划分的延迟直方图。写入端是HdrHistogram的Recorder，无锁且不分配对象；
+ * 读取时把区间直方图并入累计直方图，只有管理端点的读取会加锁。
+ */
+@Component
+public class LatencyRecorder {
+    
+    // 无法匹配到接口的请求（404、被过滤器直接拒绝且URI不是已知接口）共用一个桶，保证基数有界
+    static final String UNMATCHED = "UNMATCHED";
+    
+    // 以微秒记录，上限1分钟，2位有效数字（相对误差1%）
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    
+    private final Map<String, EndpointLatency> endpoints = new ConcurrentHashMap<>();
+    
+    /**
+     * @param pattern 请求映射到的路径模板，请求未到达控制器时为null
+     * @param requestUri 原始请求路径，用于把被过滤器拒绝的请求归到同名接口
+     */
+    void record(String pattern, String requestUri, long[] elapsed) {
+        EndpointLatency endpoint;
+        if (pattern != null) {
+            endpoint = endpoints.get(pattern);
+            if (endpoint == null) {
+                // 路径模板的数量由控制器映射决定，只在首次出现时创建
+                endpoint = endpoints.computeIfAbsent(pattern, p -> new EndpointLatency());
+            }
+        } else {
+            endpoint = endpoints.get(requestUri);
+            if (endpoint == null) {
+                endpoint = endpoints.computeIfAbsent(UNMATCHED, p -> new EndpointLatency());
+            }
+        }
+        endpoint.record(elapsed);
+    }
+    
+    /**
+     * 自启动或上次重置以来的累计分位数，单位毫秒。
+     */
+    public Map<String, Map<String, Map<String, Object>>> snapshot() {
+        Map<String, Map<String, Map<String, Object>>> result = new TreeMap<>();
+        endpoints.forEach((pattern, endpoint) -> result.put(pattern, endpoint.snapshot()));
+        return result;
+    }
+    
+    public void reset() {
+        endpoints.values().forEach(EndpointLatency::reset);
+    }
+    
+    private static final class EndpointLatency {
+        private final Recorder[] recorders = new Recorder[RequestPhase.all().length];
+        private final Histogram[] cumulative = new Histogram[RequestPhase.all().length];
+        private final Histogram[] recycled = new Histogram[RequestPhase.all().length];
+        
+        private EndpointLatency() {
+            for (int i = 0; i < recorders.length; i++) {
+                recorders[i] = new Recorder(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+                cumulative[i] = new Histogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            }
+        }
+        
+        void record(long[] elapsed) {
+            for (int i = 0; i < recorders.length; i++) {
+                // 未经历的阶段不记录，TOTAL总是记录
+                if (elapsed[i] > 0 || i == RequestPhase.TOTAL.ordinal()) {
+                    long micros = Math.max(1, Math.min(HIGHEST_TRACKABLE_MICROS, elapsed[i] / 1000));
+                    recorders[i].recordValue(micros);
+                }
+            }
+        }
+        
+        synchronized Map<String, Map<String, Object>> snapshot() {
+            Map<String, Map<String, Object>> phases = new LinkedHashMap<>();
+            for (RequestPhase phase : RequestPhase.all()) {
+                int i = phase.ordinal();
+                recycled[i] = recorders[i].getIntervalHistogram(recycled[i]);
+                cumulative[i].add(recycled[i]);
+                Histogram histogram = cumulative[i];
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("count", histogram.getTotalCount());
+                stats.put("mean", round(histogram.getMean()));
+                stats.put("p50", round(histogram.getValueAtPercentile(50)));
+                stats.put("p99", round(histogram.getValueAtPercentile(99)));
+                stats.put("p999", round(histogram.getValueAtPercentile(99.9)));
+                stats.put("max", round(histogram.getMaxValue()));
+                phases.put(phase.name().toLowerCase(Locale.ROOT), stats);
+            }
+            return phases;
+        }
+        
+        synchronized void reset() {
+            for (int i = 0; i < recorders.length; i++) {
+                recorders[i].reset();
+                cumulative[i].reset();
+            }
+        }
+        
+        // 微秒转毫秒，保留3位小数
+        private static double round(double micros) {
+            return Math.round(micros) / 1000.0;
+        }
+    }
+}
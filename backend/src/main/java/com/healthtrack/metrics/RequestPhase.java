@@ -0,0 +1,46 @@
+package com.healthtrack.metrics;
+
+/**
+ * 请求内各阶段的耗时。各阶段可以嵌套（例如PRINCIPAL_LOAD包含其中的REPOSITORY），不保证相加等于TOTAL。
+ * 耗时累加在线程本地的long数组中，只有LatencyFilter标记的请求线程才会记录，记录过程不分配对象。
+ */
+public enum RequestPhase {
+    
+    TOTAL,
+    JWT_VERIFY,
+    PRINCIPAL_LOAD,
+    PASSWORD_HASH,
+    REPOSITORY,
+    SERIALIZATION;
+    
+    private static final RequestPhase[] VALUES = values();
+    
+    // 最后一个槽位为1表示当前线程处于被测请求中
+    private static final int ACTIVE = VALUES.length;
+    
+    private static final ThreadLocal<long[]> ELAPSED = ThreadLocal.withInitial(() -> new long[ACTIVE + 1]);
+    
+    public void record(long nanos) {
+        long[] elapsed = ELAPSED.get();
+        if (elapsed[ACTIVE] != 0) {
+            elapsed[ordinal()] += nanos;
+        }
+    }
+    
+    static RequestPhase[] all() {
+        return VALUES;
+    }
+    
+    static long[] begin() {
+        long[] elapsed = ELAPSED.get();
+        for (int i = 0; i < ACTIVE; i++) {
+            elapsed[i] = 0;
+        }
+        elapsed[ACTIVE] = 1;
+        return elapsed;
+    }
+    
+    static void end(long[] elapsed) {
+        elapsed[ACTIVE] = 0;
+    }
+}
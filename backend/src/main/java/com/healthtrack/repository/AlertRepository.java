@@ -0,0 +1,73 @@
+package com.healthtrack.repository;
+
+import com.healthtrack.dto.Alert;
+import com.healthtrack.entity.MetricType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * 告警记录表patient_alert的JDBC访问。按医生查询时以id倒序做键集分页。
+ */
+@Repository
+public class AlertRepository {
+    
+    private static final String INSERT = "INSERT INTO patient_alert "
+            + "(health_id, doctor_id, rule_name, rule_expression, metric, observed_value, triggered_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String COLUMNS = "SELECT id, health_id, doctor_id, rule_name, rule_expression, metric, "
+            + "observed_value, triggered_at FROM patient_alert ";
+    
+    private static final String SELECT_BY_DOCTOR = COLUMNS + "WHERE doctor_id = ? AND id < ? ORDER BY id DESC LIMIT ?";
+    
+    private static final RowMapper<Alert> ROW_MAPPER = (rs, rowNum) -> {
+        Alert alert = new Alert(rs.getLong(2), rs.getString(4), rs.getString(5), MetricType.fromCode(rs.getInt(6)),
+                rs.getDouble(7), rs.getLong(8));
+        alert.setId(rs.getLong(1));
+        long doctorId = rs.getLong(3);
+        alert.setDoctorId(rs.wasNull() ? null : doctorId);
+        return alert;
+    };
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * 插入后把生成的id写回alert。
+     */
+    public void insert(Alert alert) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT, new String[]{"id"});
+            ps.setLong(1, alert.getHealthId());
+            if (alert.getDoctorId() != null) {
+                ps.setLong(2, alert.getDoctorId());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setString(3, alert.getRule());
+            ps.setString(4, alert.getExpression());
+            ps.setInt(5, alert.getMetric().getCode());
+            ps.setDouble(6, alert.getValue());
+            ps.setLong(7, alert.getTriggeredAt());
+            return ps;
+        }, keyHolder);
+        Number id = keyHolder.getKey();
+        alert.setId(id != null ? id.longValue() : null);
+    }
+    
+    /**
+     * 医生名下id小于beforeId的告警，按id倒序，最多limit条。
+     */
+    public List<Alert> findByDoctor(long doctorId, long beforeId, int limit) {
+        return jdbcTemplate.query(SELECT_BY_DOCTOR, ROW_MAPPER, doctorId, beforeId, limit);
+    }
+}
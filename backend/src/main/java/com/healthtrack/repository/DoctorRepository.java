@@ -1,19 +1,67 @@
 package com.healthtrack.repository;
 
+import com.healthtrack.dto.DoctorSummary;
 import com.healthtrack.entity.Doctor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> {
-    
-    Optional<Doctor> findByUsername(String username);
+public interface DoctorRepository extends JpaRepository<Doctor, Long>, DoctorRepositoryCustom {
     
     boolean existsByUsername(String username);
     
     boolean existsByLicenseId(Long licenseId);
     
     boolean existsByPhone(String phone);
+    
+    // 医生目录的键集分页：每种筛选组合单独一条查询，分别命中对应的(筛选列..., id)复合索引；
+    // 结果进入查询缓存，医生表有任何写入时由Hibernate自动失效
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.healthtrack.dto.DoctorSummary(d.id, d.name, d.specialization, d.verified) "
+            + "from Doctor d where d.id > :afterId order by d.id")
+    List<DoctorSummary> findDirectoryPage(@Param("afterId") long afterId, Pageable pageable);
+    
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.healthtrack.dto.DoctorSummary(d.id, d.name, d.specialization, d.verified) "
+            + "from Doctor d where d.specialization = :specialization and d.id > :afterId order by d.id")
+    List<DoctorSummary> findDirectoryPageBySpecialization(@Param("specialization") Integer specialization,
+                                                          @Param("afterId") long afterId, Pageable pageable);
+    
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.healthtrack.dto.DoctorSummary(d.id, d.name, d.specialization, d.verified) "
+            + "from Doctor d where d.verified = :verified and d.id > :afterId order by d.id")
+    List<DoctorSummary> findDirectoryPageByVerified(@Param("verified") Boolean verified,
+                                                    @Param("afterId") long afterId, Pageable pageable);
+    
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.healthtrack.dto.DoctorSummary(d.id, d.name, d.specialization, d.verified) "
+            + "from Doctor d where d.specialization = :specialization and d.verified = :verified "
+            + "and d.id > :afterId order by d.id")
+    List<DoctorSummary> findDirectoryPageBySpecializationAndVerified(@Param("specialization") Integer specialization,
+                                                                     @Param("verified") Boolean verified,
+                                                                     @Param("afterId") long afterId,
+                                                                     Pageable pageable);
+    
+    // 搜索索引预热用的全表扫描，不进入查询缓存
+    @Query("select new com.healthtrack.dto.DoctorSummary(d.id, d.name, d.specialization, d.verified) "
+            + "from Doctor d where d.id > :afterId order by d.id")
+    List<DoctorSummary> scanSummaries(@Param("afterId") long afterId, Pageable pageable);
+    
+    @Query("select d.username from Doctor d")
+    List<String> findAllUsernames();
+    
+    @Query("select d.phone from Doctor d where d.phone is not null")
+    List<String> findAllPhones();
+    
+    @Query("select d.licenseId from Doctor d where d.licenseId is not null")
+    List<Long> findAllLicenseIds();
 }
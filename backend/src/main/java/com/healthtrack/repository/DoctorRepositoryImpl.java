@@ -0,0 +1,27 @@
+package com.healthtrack.repository;
+
+import com.healthtrack.entity.Doctor;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+/**
+ * DoctorRepository的自定义片段，覆盖派生查询findByUsername：派生查询走JPQL，不会使用自然主键缓存。
+ */
+public class DoctorRepositoryImpl implements DoctorRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // 共享EntityManager在事务外unwrap得到的Session会立即关闭，因此这里需要事务
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Doctor> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Doctor.class)
+                .loadOptional(username);
+    }
+}
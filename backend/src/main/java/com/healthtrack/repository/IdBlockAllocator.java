@@ -0,0 +1,84 @@
+package com.healthtrack.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * 与实体上的@TableGenerator共用id_generator表，为绕过JPA的JDBC批量写入一次性预留一段连续主键。
+ * 表中的next_val按Hibernate pooled优化器的语义解释：读到V并写回V+n的一方获得[V-49, V-50+n]。
+ */
+@Repository
+// EntityManagerFactory在Flyway迁移之后构建并校验映射，依赖它即保证id_generator表已由迁移脚本创建且与实体一致
+@DependsOn("entityManagerFactory")
+public class IdBlockAllocator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdBlockAllocator.class);
+    
+    public static final String USER_SEQUENCE = "system_user";
+    public static final String DOCTOR_SEQUENCE = "system_provider";
+    
+    // 与实体上@TableGenerator的allocationSize保持一致
+    private static final int ALLOCATION_SIZE = 50;
+    
+    private static final int MAX_ATTEMPTS = 100;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @PostConstruct
+    public void init() {
+        seed(USER_SEQUENCE);
+        seed(DOCTOR_SEQUENCE);
+    }
+    
+    /**
+     * 预留count个连续主键，返回第一个。
+     */
+    public long allocate(String sequence, int count) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long current = currentValue(sequence);
+            // 乐观更新：与Hibernate或其他实例并发取号时，只有一方能成功
+            int updated = jdbcTemplate.update(
+                    "UPDATE id_generator SET next_val = ? WHERE sequence_name = ? AND next_val = ?",
+                    current + count, sequence, current);
+            if (updated == 1) {
+                return current - ALLOCATION_SIZE + 1;
+            }
+        }
+        throw new IllegalStateException("Could not reserve " + count + " ids for " + sequence);
+    }
+    
+    /**
+     * 从IDENTITY主键迁移或表中已有脚本插入的数据时，把next_val抬到不会与现有主键冲突的位置。
+     */
+    private void seed(String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + sequence, Long.class);
+        long required = (maxId != null ? maxId : 0) + ALLOCATION_SIZE;
+        List<Long> values = jdbcTemplate.queryForList(
+                "SELECT next_val FROM id_generator WHERE sequence_name = ?", Long.class, sequence);
+        if (values.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO id_generator (sequence_name, next_val) VALUES (?, ?)", sequence, required);
+            logger.info("Seeded id_generator[{}] at {}", sequence, required);
+        } else if (values.get(0) < required) {
+            jdbcTemplate.update("UPDATE id_generator SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                    required, sequence, required);
+            logger.info("Raised id_generator[{}] from {} to {}", sequence, values.get(0), required);
+        }
+    }
+    
+    private long currentValue(String sequence) {
+        Long value = jdbcTemplate.queryForObject(
+                "SELECT next_val FROM id_generator WHERE sequence_name = ?", Long.class, sequence);
+        if (value == null) {
+            throw new IllegalStateException("Missing id_generator row for " + sequence);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,91 @@
+package com.healthtrack.repository;
+
+import com.healthtrack.entity.MetricType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 压缩读数块表measurement_chunk的JDBC访问。块按(health_id, metric, window_start)聚簇，
+ * 时间范围查询只读取与范围相交的块。
+ */
+@Repository
+public class MeasurementChunkRepository {
+    
+    private static final String SELECT_OVERLAPPING = "SELECT window_start, last_at, sample_count, data FROM measurement_chunk "
+            + "WHERE health_id = ? AND metric = ? AND window_start >= ? AND window_start < ? AND last_at >= ? "
+            + "ORDER BY window_start";
+    
+    private static final String SELECT_ONE_FOR_UPDATE = "SELECT window_start, last_at, sample_count, data FROM measurement_chunk "
+            + "WHERE health_id = ? AND metric = ? AND window_start = ? FOR UPDATE";
+    
+    private static final String INSERT = "INSERT INTO measurement_chunk "
+            + "(health_id, metric, window_start, last_at, sample_count, data) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private static final String UPDATE = "UPDATE measurement_chunk SET last_at = ?, sample_count = ?, data = ? "
+            + "WHERE health_id = ? AND metric = ? AND window_start = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * 与[from, to)相交的块，按窗口升序。窗口长度固定，因此window_start的下界可以由from推出，查询走主键范围扫描。
+     */
+    public List<Chunk> findOverlapping(long healthId, MetricType metric, long from, long to, long windowMs) {
+        return jdbcTemplate.query(SELECT_OVERLAPPING,
+                (rs, rowNum) -> new Chunk(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getBytes(4)),
+                healthId, metric.getCode(), from - windowMs + 1, to, from);
+    }
+    
+    /**
+     * 读取并锁定一个块直到事务结束，合并后再写回，避免并发压缩互相覆盖。须在事务内调用。
+     */
+    public Chunk findForUpdate(long healthId, MetricType metric, long windowStart) {
+        List<Chunk> chunks = jdbcTemplate.query(SELECT_ONE_FOR_UPDATE,
+                (rs, rowNum) -> new Chunk(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getBytes(4)),
+                healthId, metric.getCode(), windowStart);
+        return chunks.isEmpty() ? null : chunks.get(0);
+    }
+    
+    public void insert(long healthId, MetricType metric, Chunk chunk) {
+        jdbcTemplate.update(INSERT, healthId, metric.getCode(), chunk.getWindowStart(), chunk.getLastAt(),
+                chunk.getSampleCount(), chunk.getData());
+    }
+    
+    public void update(long healthId, MetricType metric, Chunk chunk) {
+        jdbcTemplate.update(UPDATE, chunk.getLastAt(), chunk.getSampleCount(), chunk.getData(),
+                healthId, metric.getCode(), chunk.getWindowStart());
+    }
+    
+    public static class Chunk {
+        private final long windowStart;
+        private final long lastAt;
+        private final int sampleCount;
+        private final byte[] data;
+        
+        public Chunk(long windowStart, long lastAt, int sampleCount, byte[] data) {
+            this.windowStart = windowStart;
+            this.lastAt = lastAt;
+            this.sampleCount = sampleCount;
+            this.data = data;
+        }
+        
+        public long getWindowStart() {
+            return windowStart;
+        }
+        
+        public long getLastAt() {
+            return lastAt;
+        }
+        
+        public int getSampleCount() {
+            return sampleCount;
+        }
+        
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.healthtrack.repository;
+
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.entity.MetricType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 读数明细表measurement的JDBC访问，绕过JPA：每条读数一行，主键(health_id, metric, recorded_at)，
+ * 同一时间点重复上报的读数被忽略。MySQL连接串需带rewriteBatchedStatements=true，批量才会合并为多值INSERT。
+ */
+@Repository
+public class MeasurementRepository {
+    
+    private static final String INSERT = "INSERT IGNORE INTO measurement (health_id, metric, recorded_at, sample_value) "
+            + "VALUES (?, ?, ?, ?)";
+    
+    private static final String SELECT_RANGE = "SELECT recorded_at, sample_value FROM measurement "
+            + "WHERE health_id = ? AND metric = ? AND recorded_at >= ? AND recorded_at < ? ORDER BY recorded_at LIMIT ?";
+    
+    private static final String SELECT_TIMESTAMPS = "SELECT recorded_at FROM measurement "
+            + "WHERE health_id = ? AND metric = ? AND recorded_at >= ? AND recorded_at < ? ORDER BY recorded_at";
+    
+    private static final String SELECT_SERIES_BEFORE = "SELECT DISTINCT health_id, metric FROM measurement WHERE recorded_at < ?";
+    
+    private static final String SELECT_BEFORE = "SELECT recorded_at, sample_value FROM measurement "
+            + "WHERE health_id = ? AND metric = ? AND recorded_at < ? ORDER BY recorded_at LIMIT ?";
+    
+    private static final String DELETE = "DELETE FROM measurement WHERE health_id = ? AND metric = ? AND recorded_at = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * 在调用方的事务中把多个批次作为一次JDBC批量写入，返回按批次顺序排列的逐行更新计数，重复读数为0。
+     * 行按主键顺序插入，并发的写事务以相同顺序加锁，减少死锁。
+     */
+    public int[] insert(List<MeasurementBatch> batches, int rows) {
+        int[] batchIndex = new int[rows];
+        int[] rowIndex = new int[rows];
+        Integer[] order = new Integer[rows];
+        int n = 0;
+        for (int b = 0; b < batches.size(); b++) {
+            for (int i = 0; i < batches.get(b).size(); i++) {
+                batchIndex[n] = b;
+                rowIndex[n] = i;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> {
+            MeasurementBatch x = batches.get(batchIndex[a]);
+            MeasurementBatch y = batches.get(batchIndex[b]);
+            int c = Long.compare(x.getHealthId(), y.getHealthId());
+            if (c == 0) {
+                c = Integer.compare(x.getMetric(rowIndex[a]).getCode(), y.getMetric(rowIndex[b]).getCode());
+            }
+            return c != 0 ? c : Long.compare(x.getTimestamp(rowIndex[a]), y.getTimestamp(rowIndex[b]));
+        });
+        int[] sortedCounts = jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                MeasurementBatch batch = batches.get(batchIndex[order[i]]);
+                int row = rowIndex[order[i]];
+                ps.setLong(1, batch.getHealthId());
+                ps.setInt(2, batch.getMetric(row).getCode());
+                ps.setLong(3, batch.getTimestamp(row));
+                ps.setDouble(4, batch.getValue(row));
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return rows;
+            }
+        });
+        int[] counts = new int[rows];
+        for (int i = 0; i < sortedCounts.length && i < rows; i++) {
+            counts[order[i]] = sortedCounts[i];
+        }
+        return counts;
+    }
+    
+    /**
+     * 按时间升序读取[from, to)内的读数，最多limit条。
+     */
+    public MeasurementBatch findRange(long healthId, MetricType metric, long from, long to, int limit) {
+        MeasurementBatch result = new MeasurementBatch(healthId, Math.min(limit, 1024));
+        jdbcTemplate.query(SELECT_RANGE,
+                rs -> {
+                    result.add(metric, rs.getLong(1), rs.getDouble(2));
+                },
+                healthId, metric.getCode(), from, to, limit);
+        return result;
+    }
+    
+    /**
+     * 按时间升序返回[from, to)内已有明细行的时间戳。
+     */
+    public long[] findTimestamps(long healthId, MetricType metric, long from, long to) {
+        return jdbcTemplate.queryForList(SELECT_TIMESTAMPS, Long.class, healthId, metric.getCode(), from, to)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+    
+    /**
+     * 存在早于cutoff的明细行的(healthId, metric)组合，走idx_measurement_recorded_at覆盖索引。
+     */
+    public List<Series> findSeriesBefore(long cutoff) {
+        return jdbcTemplate.query(SELECT_SERIES_BEFORE,
+                (rs, rowNum) -> new Series(rs.getLong(1), MetricType.fromCode(rs.getInt(2))),
+                cutoff);
+    }
+    
+    /**
+     * 按时间升序读取某个序列早于cutoff的读数，最多limit条。
+     */
+    public MeasurementBatch findBefore(long healthId, MetricType metric, long cutoff, int limit) {
+        MeasurementBatch result = new MeasurementBatch(healthId, Math.min(limit, 1024));
+        jdbcTemplate.query(SELECT_BEFORE,
+                rs -> {
+                    result.add(metric, rs.getLong(1), rs.getDouble(2));
+                },
+                healthId, metric.getCode(), cutoff, limit);
+        return result;
+    }
+    
+    /**
+     * 按主键逐行删除批次中的读数。只删除读到过的行，不会误删压缩期间新写入的同区间读数。
+     */
+    public void delete(MeasurementBatch batch) {
+        jdbcTemplate.batchUpdate(DELETE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, batch.getHealthId());
+                ps.setInt(2, batch.getMetric(i).getCode());
+                ps.setLong(3, batch.getTimestamp(i));
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+    
+    public static class Series {
+        private final long healthId;
+        private final MetricType metric;
+        
+        public Series(long healthId, MetricType metric) {
+            this.healthId = healthId;
+            this.metric = metric;
+        }
+        
+        public long getHealthId() {
+            return healthId;
+        }
+        
+        public MetricType getMetric() {
+            return metric;
+        }
+    }
+}
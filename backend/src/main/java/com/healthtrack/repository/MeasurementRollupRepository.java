@@ -0,0 +1,122 @@
+package com.healthtrack.repository;
+
+import com.healthtrack.dto.RollupBucket;
+import com.healthtrack.entity.MetricType;
+import com.healthtrack.entity.RollupResolution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 预聚合表measurement_rollup的JDBC访问。写入是累加式upsert，同一个桶可以被多次、并发地更新。
+ */
+@Repository
+public class MeasurementRollupRepository {
+    
+    // 赋值顺序有意义：MySQL按从左到右使用已更新的值，last_value必须在last_at之前计算
+    private static final String UPSERT = "INSERT INTO measurement_rollup "
+            + "(health_id, metric, resolution, bucket_start, min_value, max_value, sum_value, sample_count, last_at, last_value) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "min_value = LEAST(min_value, VALUES(min_value)), "
+            + "max_value = GREATEST(max_value, VALUES(max_value)), "
+            + "sum_value = sum_value + VALUES(sum_value), "
+            + "sample_count = sample_count + VALUES(sample_count), "
+            + "last_value = CASE WHEN VALUES(last_at) >= last_at THEN VALUES(last_value) ELSE last_value END, "
+            + "last_at = GREATEST(last_at, VALUES(last_at))";
+    
+    private static final String SELECT_RANGE = "SELECT bucket_start, min_value, max_value, sum_value, sample_count, last_at, last_value "
+            + "FROM measurement_rollup WHERE health_id = ? AND metric = ? AND resolution = ? "
+            + "AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * 在调用方的事务中把各桶的增量合并进表。调用方应按主键排序，使并发写入以相同顺序加锁。
+     */
+    public void upsert(List<RollupUpdate> updates) {
+        jdbcTemplate.batchUpdate(UPSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                RollupUpdate update = updates.get(i);
+                RollupBucket bucket = update.getBucket();
+                ps.setLong(1, update.getHealthId());
+                ps.setInt(2, update.getMetric().getCode());
+                ps.setInt(3, update.getResolution().getCode());
+                ps.setLong(4, bucket.getBucketStart());
+                ps.setDouble(5, bucket.getMin());
+                ps.setDouble(6, bucket.getMax());
+                ps.setDouble(7, bucket.getSum());
+                ps.setLong(8, bucket.getCount());
+                ps.setLong(9, bucket.getLastAt());
+                ps.setDouble(10, bucket.getLast());
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return updates.size();
+            }
+        });
+    }
+    
+    /**
+     * 桶起点在[from, to)内的桶，按时间升序。
+     */
+    public List<RollupBucket> findRange(long healthId, MetricType metric, RollupResolution resolution, long from, long to) {
+        return jdbcTemplate.query(SELECT_RANGE,
+                (rs, rowNum) -> new RollupBucket(rs.getLong(1), rs.getDouble(2), rs.getDouble(3), rs.getDouble(4),
+                        rs.getLong(5), rs.getLong(6), rs.getDouble(7)),
+                healthId, metric.getCode(), resolution.getCode(), from, to);
+    }
+    
+    public static class RollupUpdate implements Comparable<RollupUpdate> {
+        private final long healthId;
+        private final MetricType metric;
+        private final RollupResolution resolution;
+        private final RollupBucket bucket;
+        
+        public RollupUpdate(long healthId, MetricType metric, RollupResolution resolution, RollupBucket bucket) {
+            this.healthId = healthId;
+            this.metric = metric;
+            this.resolution = resolution;
+            this.bucket = bucket;
+        }
+        
+        public long getHealthId() {
+            return healthId;
+        }
+        
+        public MetricType getMetric() {
+            return metric;
+        }
+        
+        public RollupResolution getResolution() {
+            return resolution;
+        }
+        
+        public RollupBucket getBucket() {
+            return bucket;
+        }
+        
+        // 与主键(health_id, metric, resolution, bucket_start)同序
+        @Override
+        public int compareTo(RollupUpdate other) {
+            int c = Long.compare(healthId, other.healthId);
+            if (c == 0) {
+                c = Integer.compare(metric.getCode(), other.metric.getCode());
+            }
+            if (c == 0) {
+                c = Integer.compare(resolution.getCode(), other.resolution.getCode());
+            }
+            if (c == 0) {
+                c = Long.compare(bucket.getBucketStart(), other.bucket.getBucketStart());
+            }
+            return c;
+        }
+    }
+}
@@ -2,18 +2,38 @@ package com.healthtrack.repository;
 
 import com.healthtrack.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    
-    Optional<User> findByUsername(String username);
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     
     boolean existsByUsername(String username);
     
     boolean existsByHealthId(Long healthId);
     
     boolean existsByPhone(String phone);
-}
\ No newline at end of file
+    
+    @Query("select u.username from User u")
+    List<String> findAllUsernames();
+    
+    @Query("select u.phone from User u where u.phone is not null")
+    List<String> findAllPhones();
+    
+    @Query("select u.healthId from User u where u.healthId is not null")
+    List<Long> findAllHealthIds();
+    
+    Optional<User> findByHealthId(Long healthId);
+    
+    // 每行为[healthId, doctorId]，没有主治医生的用户doctorId为null
+    @Query("select u.healthId, u.doctorId from User u where u.healthId in :healthIds")
+    List<Object[]> findDoctorIdsByHealthIds(@Param("healthIds") Collection<Long> healthIds);
+    
+    @Query("select u from User u where u.doctorId = :doctorId and u.healthId is not null order by u.id")
+    List<User> findPatientsByDoctorId(@Param("doctorId") Long doctorId);
+}
@@ -0,0 +1,13 @@
+package com.healthtrack.repository;
+
+import com.healthtrack.entity.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    
+    /**
+     * 按自然主键username加载，依次命中自然主键缓存与实体二级缓存，都未命中时才查询数据库。
+     */
+    Optional<User> findByUsername(String username);
+}
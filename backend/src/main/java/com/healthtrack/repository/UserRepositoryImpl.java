@@ -0,0 +1,27 @@
+package com.healthtrack.repository;
+
+import com.healthtrack.entity.User;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+/**
+ * UserRepository的自定义片段，覆盖派生查询findByUsername：派生查询走JPQL，不会使用自然主键缓存。
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // 共享EntityManager在事务外unwrap得到的Session会立即关闭，因此这里需要事务
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(username);
+    }
+}
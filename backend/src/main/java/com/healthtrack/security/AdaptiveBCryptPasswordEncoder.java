@@ -0,0 +1,90 @@
+package com.healthtrack.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 工作因子由部署环境决定的BCrypt编码器：存储哈希的cost低于当前配置时upgradeEncoding返回true，
+ * 登录成功后由认证提供者按当前cost重新哈希。cost更高的哈希保持不变，各实例配置不一致时不会来回改写。
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveBCryptPasswordEncoder.class);
+    
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    
+    // 校准时每个cost重复测量的次数，取最小值排除GC与JIT干扰
+    private static final int CALIBRATION_SAMPLES = 3;
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    
+    private final int strength;
+    
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+    
+    public int getStrength() {
+        return strength;
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.find()) {
+            return false;
+        }
+        return Integer.parseInt(matcher.group(1)) < strength;
+    }
+    
+    /**
+     * 在本机上找出单次哈希耗时不超过targetMillis的最大cost，结果限制在[minStrength, maxStrength]。
+     * cost每加1耗时翻倍，因此从minStrength开始逐级测量，超出预算即停止。
+     * 结果只作为参考：各主机测得的值可能不同，生产环境应把它固定到security.password.bcrypt.strength。
+     */
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        long start = System.nanoTime();
+        int chosen = minStrength;
+        long chosenMillis = measure(minStrength);
+        for (int candidate = minStrength + 1; candidate <= maxStrength; candidate++) {
+            // 按上一级耗时的两倍预估，明显超预算时不再实际测量
+            if (chosenMillis * 2 > targetMillis * 3 / 2) {
+                break;
+            }
+            long millis = measure(candidate);
+            if (millis > targetMillis) {
+                break;
+            }
+            chosen = candidate;
+            chosenMillis = millis;
+        }
+        if (chosenMillis > targetMillis) {
+            logger.warn("BCrypt cost {} takes {} ms on this host, above the {} ms budget; keeping the minimum cost",
+                    chosen, chosenMillis, targetMillis);
+        }
+        logger.info("Calibrated BCrypt cost {} ({} ms per hash, budget {} ms) in {} ms; "
+                        + "pin it with security.password.bcrypt.strength for production",
+                chosen, chosenMillis, targetMillis, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return chosen;
+    }
+    
+    private static long measure(int strength) {
+        String salt = BCrypt.gensalt(strength);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+            long startedAt = System.nanoTime();
+            BCrypt.hashpw(CALIBRATION_PASSWORD, salt);
+            best = Math.min(best, System.nanoTime() - startedAt);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(best);
+    }
+}
@@ -3,6 +3,7 @@ package com.healthtrack.security;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import com.healthtrack.util.SampledLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.AuthenticationException;
@@ -10,16 +11,19 @@ import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class AuthEntryPointJwt implements AuthenticationEntryPoint {
     
     private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwt.class);
+    // 未认证访问由客户端触发，每10秒最多输出一条WARN
+    private static final SampledLogger unauthorizedLogger = new SampledLogger(logger, 10, TimeUnit.SECONDS);
     
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response,
                          AuthenticationException authException) throws IOException, ServletException {
-        logger.error("Unauthorized error: {}", authException.getMessage());
+        unauthorizedLogger.warn("Unauthorized error: {}", authException.getMessage());
         response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Error: Unauthorized");
     }
 }
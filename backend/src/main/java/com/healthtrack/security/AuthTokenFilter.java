@@ -4,15 +4,19 @@ import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.metrics.RequestPhase;
+import com.healthtrack.service.DoctorService;
 import com.healthtrack.service.UserService;
 
 import java.io.IOException;
@@ -25,6 +29,16 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private DoctorService doctorService;
+    
+    @Autowired
+    private TokenRevocationStore revocationStore;
+    
+    // 为true时直接由令牌声明构建主体，不再逐请求查询数据库
+    @Value("${jwt.stateless-principal:true}")
+    private boolean statelessPrincipal;
+    
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
     
     @Override
@@ -32,12 +46,25 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            long startedAt = System.nanoTime();
+            Claims claims = jwt != null ? jwtUtils.verifyJwtToken(jwt) : null;
+            if (claims != null && revocationStore.isRevoked(claims)) {
+                logger.debug("Rejected revoked JWT {}", claims.getId());
+                claims = null;
+            }
+            if (jwt != null) {
+                RequestPhase.JWT_VERIFY.record(System.nanoTime() - startedAt);
+            }
+            if (claims != null) {
+                startedAt = System.nanoTime();
+                JwtPrincipal principal = statelessPrincipal ? jwtUtils.getPrincipalFromClaims(claims) : null;
+                if (principal == null) {
+                    principal = loadPrincipal(claims);
+                }
+                RequestPhase.PRINCIPAL_LOAD.record(System.nanoTime() - startedAt);
                 
-                UserDetails userDetails = userService.loadUserByUsername(username);
                 UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -49,6 +76,15 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    // 有状态模式或旧版令牌：按账号类型回查数据库
+    private JwtPrincipal loadPrincipal(Claims claims) {
+        String userType = claims.get(JwtUtils.CLAIM_USER_TYPE, String.class);
+        if (UserRole.DOCTOR.name().equals(userType)) {
+            return JwtPrincipal.from(doctorService.loadUserByUsername(claims.getSubject()));
+        }
+        return JwtPrincipal.from(userService.loadUserByUsername(claims.getSubject()));
+    }
+    
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
         
@@ -58,4 +94,4 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         
         return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package com.healthtrack.security;
+
+/**
+ * 刷新令牌不存在、已过期、已作废或被重复使用时抛出，调用方应返回401并要求重新登录。
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+    
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,85 @@
+package com.healthtrack.security;
+
+import com.healthtrack.entity.Doctor;
+import com.healthtrack.entity.User;
+import com.healthtrack.entity.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 从JWT声明中还原出的轻量级认证主体，不持有密码，也不是JPA实体。
+ */
+public class JwtPrincipal implements UserDetails {
+    
+    private final Long id;
+    private final String username;
+    private final UserRole userType;
+    private final Collection<? extends GrantedAuthority> authorities;
+    
+    public JwtPrincipal(Long id, String username, UserRole userType,
+                        Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.username = username;
+        this.userType = userType;
+        this.authorities = Collections.unmodifiableCollection(authorities);
+    }
+    
+    public static JwtPrincipal from(UserDetails userDetails) {
+        if (userDetails instanceof JwtPrincipal) {
+            return (JwtPrincipal) userDetails;
+        } else if (userDetails instanceof User) {
+            User user = (User) userDetails;
+            return new JwtPrincipal(user.getId(), user.getUsername(), UserRole.USER, user.getAuthorities());
+        } else if (userDetails instanceof Doctor) {
+            Doctor doctor = (Doctor) userDetails;
+            return new JwtPrincipal(doctor.getId(), doctor.getUsername(), UserRole.DOCTOR, doctor.getAuthorities());
+        }
+        throw new IllegalArgumentException("Unknown user type: " + userDetails.getClass().getName());
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public UserRole getUserType() {
+        return userType;
+    }
+    
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+    
+    @Override
+    public String getPassword() {
+        return null;
+    }
+    
+    @Override
+    public String getUsername() {
+        return username;
+    }
+    
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+    
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
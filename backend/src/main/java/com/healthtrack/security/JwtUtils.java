@@ -5,17 +5,41 @@ import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.util.SampledLogger;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class JwtUtils {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+    // 无效令牌由客户端触发，每10秒最多输出一条WARN
+    private static final SampledLogger invalidTokenLogger = new SampledLogger(logger, 10, TimeUnit.SECONDS);
+    
+    // 自定义声明：账号ID、账号类型(USER/DOCTOR)与权限列表
+    public static final String CLAIM_ACCOUNT_ID = "uid";
+    public static final String CLAIM_USER_TYPE = "type";
+    public static final String CLAIM_AUTHORITIES = "roles";
     
     @Value("${jwt.secret}")
     private String jwtSecret;
@@ -23,11 +47,44 @@ public class JwtUtils {
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
     
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxCachedTokens;
+    
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    
+    // 已验签令牌缓存：键为令牌的SHA-256摘要，条目在令牌exp到达后失效
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private volatile long nextPurgeAt;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+    
     public String generateJwtToken(Authentication authentication) {
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
+        return generateJwtToken((UserDetails) authentication.getPrincipal());
+    }
+    
+    public String generateJwtToken(UserDetails userDetails) {
+        JwtPrincipal userPrincipal = JwtPrincipal.from(userDetails);
+        
+        List<String> authorities = new ArrayList<>();
+        for (GrantedAuthority authority : userPrincipal.getAuthorities()) {
+            authorities.add(authority.getAuthority());
+        }
         
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject((userPrincipal.getUsername()))
+                .claim(CLAIM_ACCOUNT_ID, userPrincipal.getId())
+                .claim(CLAIM_USER_TYPE, userPrincipal.getUserType().name())
+                .claim(CLAIM_AUTHORITIES, authorities)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS512)
@@ -35,35 +92,135 @@ public class JwtUtils {
     }
     
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return getClaimsFromJwtToken(token).getSubject();
     }
     
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * 返回已验签的声明，同一令牌只验签一次。返回的Claims为缓存共享对象，调用方不得修改。
+     */
+    public Claims getClaimsFromJwtToken(String token) {
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                cacheHits.increment();
+                return cached.claims;
+            }
+            verifiedTokens.remove(key, cached);
+        }
+        
+        cacheMisses.increment();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        cache(key, claims, now);
+        return claims;
+    }
+    
+    /**
+     * 验签并返回声明；令牌无效时记录原因并返回null。
+     */
+    public Claims verifyJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
+            return getClaimsFromJwtToken(authToken);
         } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
+            // 访问令牌有效期短，过期是常态，由客户端刷新
+            logger.debug("JWT token is expired: {}", e.getMessage());
+        } catch (MalformedJwtException e) {
+            invalidTokenLogger.warn("Invalid JWT token: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
+            invalidTokenLogger.warn("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
+            invalidTokenLogger.warn("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            invalidTokenLogger.warn("JWT signature is invalid: {}", e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * 直接由已验签的声明构建认证主体；旧版令牌缺少账号ID或类型时返回null。
+     */
+    public JwtPrincipal getPrincipalFromClaims(Claims claims) {
+        Number accountId = claims.get(CLAIM_ACCOUNT_ID, Number.class);
+        String userType = claims.get(CLAIM_USER_TYPE, String.class);
+        List<?> roles = claims.get(CLAIM_AUTHORITIES, List.class);
+        if (accountId == null || userType == null || roles == null) {
+            return null;
+        }
+        
+        List<GrantedAuthority> authorities = new ArrayList<>(roles.size());
+        for (Object role : roles) {
+            authorities.add(new SimpleGrantedAuthority(String.valueOf(role)));
+        }
+        return new JwtPrincipal(accountId.longValue(), claims.getSubject(), UserRole.valueOf(userType), authorities);
+    }
+    
+    public boolean validateJwtToken(String authToken) {
+        return verifyJwtToken(authToken) != null;
+    }
+    
+    public int getCachedTokenCount() {
+        return verifiedTokens.size();
+    }
+    
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+    
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+    
+    private void cache(String key, Claims claims, long now) {
+        Date expiration = claims.getExpiration();
+        long expiresAt = expiration != null ? expiration.getTime() : now + jwtExpirationMs;
+        
+        if (verifiedTokens.size() >= maxCachedTokens) {
+            purgeExpired(now);
+            if (verifiedTokens.size() >= maxCachedTokens) {
+                // 缓存已满且无过期条目，本次不缓存，保证内存有界
+                return;
+            }
+        }
+        verifiedTokens.put(key, new VerifiedToken(claims, expiresAt));
+    }
+    
+    private void purgeExpired(long now) {
+        // 限制全表扫描频率，避免缓存满时每次写入都遍历
+        if (now < nextPurgeAt) {
+            return;
+        }
+        nextPurgeAt = now + 1000;
+        Iterator<VerifiedToken> iterator = verifiedTokens.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt <= now) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        return false;
     }
     
     private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
+    }
+    
+    private static final class VerifiedToken {
+        private final Claims claims;
+        private final long expiresAt;
+        
+        private VerifiedToken(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
     }
 }
@@ -0,0 +1,306 @@
+package com.healthtrack.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录限流：按客户端IP与用户名各维护一组令牌桶，超限请求在进入AuthController之前直接返回429，
+ * 不触发密码哈希与数据库查询。
+ * 运维接口与actuator（/api/admin/**、/actuator/**，HTTP Basic，健康检查除外）共用同一组令牌桶，但只有认证失败（401）的请求消耗令牌，
+ * 正常的批量运维调用不受限；令牌耗尽后同一IP或用户名的请求在校验密码之前即被拒绝。
+ */
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoginRateLimitFilter.class);
+    
+    private static final String LOGIN_PATH = "/api/auth/login";
+    private static final String ADMIN_PATH_PREFIX = "/api/admin/";
+    private static final String ACTUATOR_PATH_PREFIX = "/actuator/";
+    private static final String HEALTH_PATH = "/actuator/health";
+    
+    // 登录请求体很小，超过该长度不再解析用户名，只按IP限流
+    private static final int MAX_PARSED_BODY_BYTES = 8192;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${security.login-rate-limit.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${security.login-rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+    
+    @Value("${security.login-rate-limit.ip.refill-per-minute:20}")
+    private int ipRefillPerMinute;
+    
+    @Value("${security.login-rate-limit.username.capacity:5}")
+    private int usernameCapacity;
+    
+    @Value("${security.login-rate-limit.username.refill-per-minute:5}")
+    private int usernameRefillPerMinute;
+    
+    // 每组限流器同时跟踪的键数上限，只淘汰已回满的桶，满时新键共用溢出桶
+    @Value("${security.login-rate-limit.max-keys:100000}")
+    private int maxKeys;
+    
+    @Value("${security.login-rate-limit.stripes:64}")
+    private int stripes;
+    
+    private LoginRateLimiter ipLimiter;
+    private LoginRateLimiter usernameLimiter;
+    private Counter ipRejections;
+    private Counter usernameRejections;
+    
+    @PostConstruct
+    public void init() {
+        ipLimiter = new LoginRateLimiter(ipCapacity, ipRefillPerMinute, maxKeys, stripes);
+        usernameLimiter = new LoginRateLimiter(usernameCapacity, usernameRefillPerMinute, maxKeys, stripes);
+        ipRejections = meterRegistry.counter("healthtrack.login.rate.limited", "key", "ip");
+        usernameRejections = meterRegistry.counter("healthtrack.login.rate.limited", "key", "username");
+        Gauge.builder("healthtrack.login.rate.keys", ipLimiter, LoginRateLimiter::size)
+                .tag("key", "ip")
+                .register(meterRegistry);
+        Gauge.builder("healthtrack.login.rate.keys", usernameLimiter, LoginRateLimiter::size)
+                .tag("key", "username")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !(isLogin(request) || isAdmin(request));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAdmin(request)) {
+            filterAdmin(request, response, filterChain);
+            return;
+        }
+        // 先按IP限流，被拒绝的请求连请求体都不读
+        long waitNanos = ipLimiter.tryAcquire("ip:" + request.getRemoteAddr());
+        if (waitNanos > 0) {
+            ipRejections.increment();
+            reject(response, waitNanos);
+            return;
+        }
+        
+        // 登录请求体只有用户名和密码，超过上限的直接拒绝，避免把任意大小的请求体读进内存
+        if (request.getContentLengthLong() > MAX_PARSED_BODY_BYTES) {
+            rejectTooLarge(response);
+            return;
+        }
+        byte[] body = readAtMost(request.getInputStream(), MAX_PARSED_BODY_BYTES + 1);
+        if (body.length > MAX_PARSED_BODY_BYTES) {
+            // 未声明Content-Length（分块传输）且超过上限
+            rejectTooLarge(response);
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request, body);
+        String username = extractUsername(body);
+        if (username != null) {
+            waitNanos = usernameLimiter.tryAcquire("user:" + username);
+            if (waitNanos > 0) {
+                usernameRejections.increment();
+                logger.debug("Login rate limit exceeded for username {}", username);
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(cachedRequest, response);
+    }
+    
+    private void filterAdmin(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String ipKey = "ip:" + request.getRemoteAddr();
+        String username = basicUsername(request);
+        String usernameKey = username != null ? "admin:" + username : null;
+        long waitNanos = ipLimiter.peek(ipKey);
+        if (waitNanos > 0) {
+            ipRejections.increment();
+            reject(response, waitNanos);
+            return;
+        }
+        if (usernameKey != null && (waitNanos = usernameLimiter.peek(usernameKey)) > 0) {
+            usernameRejections.increment();
+            reject(response, waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+        if (response.getStatus() == HttpStatus.UNAUTHORIZED.value()) {
+            ipLimiter.tryAcquire(ipKey);
+            if (usernameKey != null) {
+                usernameLimiter.tryAcquire(usernameKey);
+            }
+        }
+    }
+    
+    private static boolean isLogin(HttpServletRequest request) {
+        return "POST".equals(request.getMethod()) && LOGIN_PATH.equals(path(request));
+    }
+    
+    // 健康检查不需要认证，也不应因同一IP的失败尝试而被负载均衡器判为不可用
+    private static boolean isAdmin(HttpServletRequest request) {
+        String path = path(request);
+        return path.startsWith(ADMIN_PATH_PREFIX)
+                || path.startsWith(ACTUATOR_PATH_PREFIX) && !path.equals(HEALTH_PATH) && !path.startsWith(HEALTH_PATH + "/");
+    }
+    
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+    
+    private static String basicUsername(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+        try {
+            String credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+            int colon = credentials.indexOf(':');
+            return colon > 0 ? credentials.substring(0, colon).toLowerCase(Locale.ROOT) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    // 用户名区分大小写，但限流时合并大小写变体，避免换大小写绕过
+    private String extractUsername(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode username = objectMapper.readTree(body).get("username");
+            if (username == null || !username.isTextual() || username.asText().trim().isEmpty()) {
+                return null;
+            }
+            return username.asText().trim().toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            // 格式错误的请求体交给控制器返回400
+            return null;
+        }
+    }
+    
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        // 向上取整到秒
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Too many requests");
+        error.put("message", "Too many login attempts, retry after " + retryAfterSeconds + " seconds");
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+    
+    private void rejectTooLarge(HttpServletResponse response) throws IOException {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Payload too large");
+        error.put("message", "Login request body must not exceed " + MAX_PARSED_BODY_BYTES + " bytes");
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+    
+    private static byte[] readAtMost(InputStream input, int limit) throws IOException {
+        byte[] buffer = new byte[limit];
+        int length = 0;
+        int read;
+        while (length < limit && (read = input.read(buffer, length, limit - length)) != -1) {
+            length += read;
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+    
+    /**
+     * 缓存请求体，使过滤器读取用户名之后控制器仍能再次读取。
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+        
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // 请求体已全部在内存中，立即通知可读并读完
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+                
+                @Override
+                public int read() {
+                    return input.read();
+                }
+                
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+        
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
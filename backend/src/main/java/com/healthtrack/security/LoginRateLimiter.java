@@ -0,0 +1,135 @@
+package com.healthtrack.security;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按键（客户端IP或用户名）限流的令牌桶集合。
+ * 每个桶只有一个AtomicLong，用GCRA算法（与令牌桶等价）以CAS无锁扣减；
+ * 桶按键哈希分散到固定数量的分段中，每段有容量上限，总内存与键的数量无关。
+ * 只淘汰已回满的桶，正在限流的桶不会被挤出；分段满且没有可淘汰的桶时，
+ * 新键共用该分段的一个溢出桶，宁可多限流也不让大量新键冲掉受害者的计数。
+ */
+public class LoginRateLimiter {
+    
+    // 每次插入新键时顺带检查的最久未访问桶数量上限
+    private static final int IDLE_SWEEP_LIMIT = 8;
+    
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    
+    /**
+     * @param capacity 桶容量，即允许的突发次数
+     * @param refillPerMinute 每分钟补充的令牌数
+     * @param maxKeys 同时跟踪的键数上限
+     * @param stripes 分段数，取不小于该值的2的幂
+     */
+    public LoginRateLimiter(int capacity, int refillPerMinute, int maxKeys, int stripes) {
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        int stripeCount = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        int perStripe = Math.max(1, (maxKeys + stripeCount - 1) / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(perStripe);
+        }
+    }
+    
+    /**
+     * 尝试消耗一个令牌。返回0表示放行，否则返回需要等待的纳秒数。
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = stripeFor(key).bucket(key, now);
+        while (true) {
+            // tat为理论到达时间：桶满时tat不晚于now，每次放行把tat推后一个发放间隔
+            long tat = bucket.get();
+            long base = Math.max(tat, now);
+            long waitNanos = base - now - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(tat, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+    
+    /**
+     * 查询下一次tryAcquire需要等待的纳秒数，不消耗令牌；从未出现过的键返回0（分段已满时按溢出桶计算）。
+     */
+    public long peek(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = stripeFor(key).find(key);
+        if (bucket == null) {
+            return 0;
+        }
+        return Math.max(0, Math.max(bucket.get(), now) - now - burstToleranceNanos);
+    }
+    
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+    
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & stripeMask];
+    }
+    
+    private static final class Stripe {
+        private final int capacity;
+        // accessOrder=true，最久未访问的桶在前，最可能已经回满
+        private final LinkedHashMap<String, AtomicLong> buckets = new LinkedHashMap<>(16, 0.75f, true);
+        // 分段满时新键共用的桶
+        private final AtomicLong overflow = new AtomicLong(System.nanoTime());
+        
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        synchronized AtomicLong bucket(String key, long now) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                evictIdle(now);
+                if (buckets.size() >= capacity) {
+                    return overflow;
+                }
+                bucket = new AtomicLong(now);
+                buckets.put(key, bucket);
+            }
+            return bucket;
+        }
+        
+        synchronized AtomicLong find(String key) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null && buckets.size() >= capacity) {
+                return overflow;
+            }
+            return bucket;
+        }
+        
+        synchronized int size() {
+            return buckets.size();
+        }
+        
+        // tat不晚于now的桶已经回满，删除它与保留它对限流结果没有区别；未回满的桶跳过，不会被淘汰
+        private void evictIdle(long now) {
+            Iterator<AtomicLong> iterator = buckets.values().iterator();
+            for (int i = 0; i < IDLE_SWEEP_LIMIT && iterator.hasNext(); i++) {
+                if (iterator.next().get() - now <= 0) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
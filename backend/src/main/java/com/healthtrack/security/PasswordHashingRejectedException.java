@@ -0,0 +1,18 @@
+package com.healthtrack.security;
+
+/**
+ * 密码哈希线程池队列已满时抛出，调用方应返回503并提示稍后重试。
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    
+    private final int retryAfterSeconds;
+    
+    public PasswordHashingRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,283 @@
+package com.healthtrack.security;
+
+import com.healthtrack.util.LongHashSet;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 已吊销令牌集合。按令牌exp对齐划分时间桶，每桶是一个long集合（jti的64位摘要），
+ * 桶内令牌全部过期后整桶丢弃，因此内存只与尚未过期的已吊销令牌数量成正比。
+ * 每次吊销追加一条16字节记录（exp + 摘要）到文件，启动时重放并压缩。
+ */
+@Component
+public class TokenRevocationStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+    
+    private static final long SWEEP_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${jwt.revocation.bucket-minutes:60}")
+    private int bucketMinutes;
+    
+    // 为空时只保存在内存中，重启后吊销失效
+    @Value("${jwt.revocation.file:}")
+    private String file;
+    
+    private final Map<Long, LongHashSet> buckets = new ConcurrentHashMap<>();
+    private final StampedLock lock = new StampedLock();
+    private long bucketWidthMs;
+    private Path path;
+    private DataOutputStream log;
+    private long logRecords;
+    private volatile int revokedCount;
+    private volatile long nextSweepAt;
+    private Counter rejections;
+    
+    @PostConstruct
+    public void init() throws IOException {
+        bucketWidthMs = TimeUnit.MINUTES.toMillis(bucketMinutes);
+        if (!file.isEmpty()) {
+            path = Paths.get(file).toAbsolutePath().normalize();
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            long replayed = replay();
+            compact();
+            logger.info("Loaded {} revoked tokens from {} ({} records replayed)", revokedCount, path, replayed);
+        }
+        Gauge.builder("healthtrack.jwt.revoked.size", this, TokenRevocationStore::size)
+                .register(meterRegistry);
+        rejections = meterRegistry.counter("healthtrack.jwt.revoked.rejected");
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * 吊销令牌直到其exp；没有jti或exp的旧版令牌无法吊销，返回false。
+     */
+    public boolean revoke(Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (claims.getId() == null || expiration == null) {
+            return false;
+        }
+        long expiresAt = expiration.getTime();
+        long now = System.currentTimeMillis();
+        if (expiresAt <= now) {
+            return true;
+        }
+        long key = keyOf(claims.getId());
+        long stamp = lock.writeLock();
+        try {
+            LongHashSet bucket = buckets.computeIfAbsent(bucketOf(expiresAt), b -> new LongHashSet());
+            if (bucket.add(key)) {
+                revokedCount++;
+                append(expiresAt, key);
+            }
+            sweepLocked(now);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return true;
+    }
+    
+    /**
+     * 每个已认证请求都会调用：没有任何吊销或令牌所在时间桶为空时不加锁直接返回。
+     */
+    public boolean isRevoked(Claims claims) {
+        if (revokedCount == 0 || claims.getId() == null || claims.getExpiration() == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextSweepAt) {
+            trySweep(now);
+        }
+        LongHashSet bucket = buckets.get(bucketOf(claims.getExpiration().getTime()));
+        if (bucket == null) {
+            return false;
+        }
+        long key = keyOf(claims.getId());
+        // 乐观读：吊销很少发生，绝大多数检查无需获取读锁
+        long stamp = lock.tryOptimisticRead();
+        boolean revoked = bucket.contains(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                revoked = bucket.contains(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (revoked) {
+            rejections.increment();
+        }
+        return revoked;
+    }
+    
+    public int size() {
+        return revokedCount;
+    }
+    
+    private void trySweep(long now) {
+        long stamp = lock.tryWriteLock();
+        if (stamp == 0) {
+            return;
+        }
+        try {
+            sweepLocked(now);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    // 丢弃整桶已过期的令牌；文件中过期记录过多时顺带压缩
+    private void sweepLocked(long now) {
+        if (now < nextSweepAt) {
+            return;
+        }
+        nextSweepAt = now + SWEEP_INTERVAL_MS;
+        int removed = 0;
+        Iterator<Map.Entry<Long, LongHashSet>> iterator = buckets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, LongHashSet> entry = iterator.next();
+            if ((entry.getKey() + 1) * bucketWidthMs <= now) {
+                removed += entry.getValue().size();
+                iterator.remove();
+            }
+        }
+        if (removed > 0) {
+            revokedCount -= removed;
+            logger.debug("Dropped {} expired revocations, {} remaining", removed, revokedCount);
+        }
+        if (path != null && logRecords > 2L * revokedCount + 1024) {
+            try {
+                compact();
+            } catch (IOException e) {
+                logger.warn("Could not compact revocation file {}: {}", path, e.getMessage());
+            }
+        }
+    }
+    
+    private long replay() throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                long expiresAt;
+                long key;
+                try {
+                    expiresAt = in.readLong();
+                    key = in.readLong();
+                } catch (EOFException e) {
+                    // 进程崩溃时最后一条记录可能只写了一半，忽略
+                    break;
+                }
+                records++;
+                if (expiresAt > now && buckets.computeIfAbsent(bucketOf(expiresAt), b -> new LongHashSet()).add(key)) {
+                    revokedCount++;
+                }
+            }
+        }
+        return records;
+    }
+    
+    // 只写回未过期的记录，先写临时文件再原子替换
+    private void compact() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long records = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            for (Map.Entry<Long, LongHashSet> entry : buckets.entrySet()) {
+                // 记录桶的结束时间作为exp，重放时落入同一个桶
+                long expiresAt = (entry.getKey() + 1) * bucketWidthMs - 1;
+                for (long key : entry.getValue().toArray()) {
+                    out.writeLong(expiresAt);
+                    out.writeLong(key);
+                    records++;
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logRecords = records;
+        log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile(), true)));
+    }
+    
+    private void append(long expiresAt, long key) {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.writeLong(expiresAt);
+            log.writeLong(key);
+            log.flush();
+            logRecords++;
+        } catch (IOException e) {
+            logger.warn("Could not persist revocation to {}: {}", path, e.getMessage());
+        }
+    }
+    
+    private long bucketOf(long expiresAt) {
+        return expiresAt / bucketWidthMs;
+    }
+    
+    // jti为随机UUID，异或两半即得到均匀的64位摘要；其他格式退化为FNV-1a
+    private static long keyOf(String jti) {
+        try {
+            UUID uuid = UUID.fromString(jti);
+            return uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+        } catch (IllegalArgumentException e) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < jti.length(); i++) {
+                hash ^= jti.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
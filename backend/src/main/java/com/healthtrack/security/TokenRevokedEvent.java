@@ -0,0 +1,20 @@
+package com.healthtrack.security;
+
+/**
+ * 访问令牌被吊销（注销）后发布，持有该令牌建立的长连接应随之关闭。
+ */
+public class TokenRevokedEvent {
+    
+    private final String tokenId;
+    
+    public TokenRevokedEvent(String tokenId) {
+        this.tokenId = tokenId;
+    }
+    
+    /**
+     * 令牌的jti
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+}
@@ -0,0 +1,105 @@
+package com.healthtrack.security;
+
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.metrics.RequestPhase;
+import com.healthtrack.service.UnifiedUserDetailsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.AbstractUserDetailsAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * 按令牌中的账号类型选择UserService或DoctorService加载账号，不依赖线程绑定状态，
+ * 因此整个登录流程可以在任意执行器上运行。登录成功且存储哈希的算法或cost与当前配置不符时顺带重新哈希。
+ */
+public class UserTypeAuthenticationProvider extends AbstractUserDetailsAuthenticationProvider {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserTypeAuthenticationProvider.class);
+    
+    // 用户不存在时也做一次哈希比对，避免通过响应时间枚举用户名
+    private static final String USER_NOT_FOUND_PASSWORD = "userNotFoundPassword";
+    
+    private final UnifiedUserDetailsService userDetailsService;
+    private final PasswordEncoder passwordEncoder;
+    private volatile String userNotFoundEncodedPassword;
+    
+    public UserTypeAuthenticationProvider(UnifiedUserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+        this.userDetailsService = userDetailsService;
+        this.passwordEncoder = passwordEncoder;
+    }
+    
+    @Override
+    protected UserDetails retrieveUser(String username, UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        UserRole userType = authentication instanceof UserTypeAuthenticationToken
+                ? ((UserTypeAuthenticationToken) authentication).getUserType()
+                : UserRole.USER;
+        
+        prepareTimingAttackProtection();
+        long startedAt = System.nanoTime();
+        try {
+            UserDetails loadedUser = userDetailsService.loadUserByUsername(username, userType);
+            if (loadedUser == null) {
+                throw new InternalAuthenticationServiceException(
+                        "UserDetailsService returned null, which is an interface contract violation");
+            }
+            return loadedUser;
+        } catch (UsernameNotFoundException e) {
+            mitigateAgainstTimingAttack(authentication);
+            throw e;
+        } catch (InternalAuthenticationServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InternalAuthenticationServiceException(e.getMessage(), e);
+        } finally {
+            RequestPhase.PRINCIPAL_LOAD.record(System.nanoTime() - startedAt);
+        }
+    }
+    
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        if (authentication.getCredentials() == null) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+        String presentedPassword = authentication.getCredentials().toString();
+        if (!passwordEncoder.matches(presentedPassword, userDetails.getPassword())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+    }
+    
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+                                                         UserDetails user) {
+        if (authentication.getCredentials() != null && passwordEncoder.upgradeEncoding(user.getPassword())) {
+            try {
+                String presentedPassword = authentication.getCredentials().toString();
+                user = userDetailsService.updatePassword(user, passwordEncoder.encode(presentedPassword));
+            } catch (RuntimeException e) {
+                // 重新哈希失败不影响本次登录，下次登录再试
+                logger.warn("Could not rehash password for {}: {}", user.getUsername(), e.getMessage());
+            }
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+    
+    private void prepareTimingAttackProtection() {
+        if (userNotFoundEncodedPassword == null) {
+            userNotFoundEncodedPassword = passwordEncoder.encode(USER_NOT_FOUND_PASSWORD);
+        }
+    }
+    
+    private void mitigateAgainstTimingAttack(UsernamePasswordAuthenticationToken authentication) {
+        if (authentication.getCredentials() != null) {
+            passwordEncoder.matches(authentication.getCredentials().toString(), userNotFoundEncodedPassword);
+        }
+    }
+}
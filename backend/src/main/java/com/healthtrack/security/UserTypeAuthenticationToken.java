@@ -0,0 +1,21 @@
+package com.healthtrack.security;
+
+import com.healthtrack.entity.UserRole;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+/**
+ * 携带账号类型的登录令牌，替代原先通过ThreadLocal传递用户类型的做法。
+ */
+public class UserTypeAuthenticationToken extends UsernamePasswordAuthenticationToken {
+    
+    private final UserRole userType;
+    
+    public UserTypeAuthenticationToken(String username, String password, UserRole userType) {
+        super(username, password);
+        this.userType = userType;
+    }
+    
+    public UserRole getUserType() {
+        return userType;
+    }
+}
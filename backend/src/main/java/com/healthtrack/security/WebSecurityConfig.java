@@ -1,25 +1,36 @@
 package com.healthtrack.security;
 
 import com.healthtrack.service.UnifiedUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -29,17 +40,48 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private Environment environment;
+    
+    // 哈希线程数，0表示按CPU核数
+    @Value("${security.password.hashing.threads:0}")
+    private int hashingThreads;
+    
+    @Value("${security.password.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+    
+    @Value("${security.password.hashing.retry-after-seconds:1}")
+    private int hashingRetryAfterSeconds;
+    
+    // BCrypt工作因子，0表示启动时按target-millis在本机校准；prod profile下必须显式配置
+    @Value("${security.password.bcrypt.strength:0}")
+    private int bcryptStrength;
+    
+    @Value("${security.password.bcrypt.target-millis:250}")
+    private long bcryptTargetMillis;
+    
+    @Value("${security.password.bcrypt.min-strength:10}")
+    private int bcryptMinStrength;
+    
+    @Value("${security.password.bcrypt.max-strength:16}")
+    private int bcryptMaxStrength;
+    
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
     }
     
     @Bean
-    public DaoAuthenticationProvider authenticationProvider(UnifiedUserDetailsService unifiedUserDetailsService) {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(unifiedUserDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
+    public LoginRateLimitFilter loginRateLimitFilter() {
+        return new LoginRateLimitFilter();
+    }
+    
+    @Bean
+    public UserTypeAuthenticationProvider authenticationProvider(UnifiedUserDetailsService unifiedUserDetailsService) {
+        return new UserTypeAuthenticationProvider(unifiedUserDetailsService, passwordEncoder());
     }
     
     @Bean
@@ -49,11 +91,56 @@ public class WebSecurityConfig {
     
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        // 各实例各自校准会得到不同的cost，生产环境要求所有实例使用同一个固定值
+        if (bcryptStrength <= 0 && environment.acceptsProfiles(Profiles.of("prod"))) {
+            throw new IllegalStateException("security.password.bcrypt.strength must be pinned (4-31) in the prod profile");
+        }
+        int strength = bcryptStrength > 0 ? bcryptStrength
+                : AdaptiveBCryptPasswordEncoder.calibrate(bcryptTargetMillis, bcryptMinStrength, bcryptMaxStrength);
+        
+        // 新哈希带{bcrypt}前缀；无前缀的历史哈希按BCrypt校验，并在下次登录时重新哈希
+        PasswordEncoder bcrypt = new AdaptiveBCryptPasswordEncoder(strength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        
+        return new BoundedPasswordEncoder(delegating, threads, hashingQueueCapacity,
+                hashingRetryAfterSeconds, meterRegistry);
+    }
+    
+    // 运维接口与actuator单独一条过滤链：HTTP Basic + spring.security.user 中配置的管理员账号，认证失败按登录限流；
+    // 只有健康检查对外开放，延迟统计等端点可被重置，仅限管理员
+    @Bean
+    @Order(1)
+    public SecurityFilterChain adminFilterChain(HttpSecurity http, SecurityProperties securityProperties) throws Exception {
+        SecurityProperties.User admin = securityProperties.getUser();
+        // 未配置时Spring Boot会生成随机密码并打印到日志，这里要求显式配置，并拒绝默认的admin
+        if (admin.isPasswordGenerated() || "admin".equals(admin.getPassword())) {
+            throw new IllegalStateException("Admin password must be set via ADMIN_PASSWORD and must not be \"admin\"");
+        }
+        UserDetails adminUser = org.springframework.security.core.userdetails.User.withUsername(admin.getName())
+                .password(passwordEncoder().encode(admin.getPassword()))
+                .roles("ADMIN")
+                .build();
+        
+        http.requestMatchers(matchers -> matchers.antMatchers("/api/admin/**", "/actuator/**"))
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(auth ->
+                auth.antMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                    .anyRequest().hasRole("ADMIN")
+            )
+            .httpBasic(Customizer.withDefaults())
+            .userDetailsService(new InMemoryUserDetailsManager(adminUser))
+            .addFilterBefore(loginRateLimitFilter(), BasicAuthenticationFilter.class);
+        
+        return http.build();
     }
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, UserTypeAuthenticationProvider authenticationProvider) throws Exception {
         http.cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
@@ -66,6 +153,7 @@ public class WebSecurityConfig {
         
         http.headers(headers -> headers.frameOptions().disable());
         http.authenticationProvider(authenticationProvider);
+        http.addFilterBefore(loginRateLimitFilter(), UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
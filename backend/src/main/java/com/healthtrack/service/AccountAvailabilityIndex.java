@@ -0,0 +1,217 @@
+package com.healthtrack.service;
+
+import com.healthtrack.entity.Doctor;
+import com.healthtrack.entity.User;
+import com.healthtrack.repository.DoctorRepository;
+import com.healthtrack.repository.UserRepository;
+import com.healthtrack.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 用户名/手机号/健康ID等唯一字段的内存占用索引，供注册页的可用性检查使用。
+ * 命中精确集合即返回已占用，其余情况回落到existsBy查询。
+ * 索引只包含本节点启动时加载及之后经本节点写入的账号，其他副本或直接写库创建的账号不在其中，
+ * 因此布隆过滤器判定不存在默认只作参考；仅在单节点部署时可开启trust-negatives直接返回可用。
+ * 键按列的排序规则（utf8mb4_unicode_ci）归一化：忽略大小写与末尾空格。
+ */
+@Service
+public class AccountAvailabilityIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AccountAvailabilityIndex.class);
+    
+    // 估算精确集合中每个条目的额外开销（跳表节点与String对象头）
+    private static final long EXACT_ENTRY_OVERHEAD_BYTES = 96;
+    
+    public enum Field {
+        USER_USERNAME, USER_PHONE, USER_HEALTH_ID,
+        DOCTOR_USERNAME, DOCTOR_PHONE, DOCTOR_LICENSE_ID
+    }
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${availability-index.expected-insertions:1000000}")
+    private long expectedInsertions;
+    
+    @Value("${availability-index.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    // 仅单节点部署可开启：所有账号都经本节点写入时，布隆过滤器的否定结果才可信
+    @Value("${availability-index.trust-negatives:false}")
+    private boolean trustNegatives;
+    
+    private final Map<Field, FieldIndex> indexes = new EnumMap<>(Field.class);
+    private volatile boolean ready;
+    
+    private Counter negativeHits;
+    private Counter exactHits;
+    private Counter fallThroughs;
+    
+    @PostConstruct
+    public void init() {
+        for (Field field : Field.values()) {
+            indexes.put(field, new FieldIndex(expectedInsertions, falsePositiveRate));
+            Gauge.builder("healthtrack.availability.false.positive.rate", this, index -> index.getFalsePositiveRate(field))
+                    .tag("field", field.name())
+                    .register(meterRegistry);
+            Gauge.builder("healthtrack.availability.memory", this, index -> index.getMemoryFootprint(field))
+                    .tag("field", field.name())
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+        negativeHits = lookupCounter("negative");
+        exactHits = lookupCounter("exact");
+        fallThroughs = lookupCounter("database");
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        addAll(Field.USER_USERNAME, userRepository.findAllUsernames());
+        addAll(Field.USER_PHONE, userRepository.findAllPhones());
+        addAll(Field.USER_HEALTH_ID, userRepository.findAllHealthIds());
+        addAll(Field.DOCTOR_USERNAME, doctorRepository.findAllUsernames());
+        addAll(Field.DOCTOR_PHONE, doctorRepository.findAllPhones());
+        addAll(Field.DOCTOR_LICENSE_ID, doctorRepository.findAllLicenseIds());
+        ready = true;
+        logger.info("Availability index warmed in {} ms", System.currentTimeMillis() - start);
+    }
+    
+    public boolean usernameExists(String username, boolean doctor) {
+        if (doctor) {
+            return exists(Field.DOCTOR_USERNAME, username, () -> doctorRepository.existsByUsername(username));
+        }
+        return exists(Field.USER_USERNAME, username, () -> userRepository.existsByUsername(username));
+    }
+    
+    public boolean phoneExists(String phone, boolean doctor) {
+        if (doctor) {
+            return exists(Field.DOCTOR_PHONE, phone, () -> doctorRepository.existsByPhone(phone));
+        }
+        return exists(Field.USER_PHONE, phone, () -> userRepository.existsByPhone(phone));
+    }
+    
+    public boolean healthIdExists(Long healthId) {
+        return exists(Field.USER_HEALTH_ID, String.valueOf(healthId), () -> userRepository.existsByHealthId(healthId));
+    }
+    
+    public boolean licenseIdExists(Long licenseId) {
+        return exists(Field.DOCTOR_LICENSE_ID, String.valueOf(licenseId), () -> doctorRepository.existsByLicenseId(licenseId));
+    }
+    
+    public void recordUser(User user) {
+        add(Field.USER_USERNAME, user.getUsername());
+        add(Field.USER_PHONE, user.getPhone());
+        add(Field.USER_HEALTH_ID, user.getHealthId());
+    }
+    
+    public void recordDoctor(Doctor doctor) {
+        add(Field.DOCTOR_USERNAME, doctor.getUsername());
+        add(Field.DOCTOR_PHONE, doctor.getPhone());
+        add(Field.DOCTOR_LICENSE_ID, doctor.getLicenseId());
+    }
+    
+    public double getFalsePositiveRate(Field field) {
+        return indexes.get(field).bloom.expectedFalsePositiveRate();
+    }
+    
+    public long getMemoryFootprint(Field field) {
+        FieldIndex index = indexes.get(field);
+        return index.bloom.sizeInBytes()
+                + index.exact.size() * EXACT_ENTRY_OVERHEAD_BYTES
+                + index.exactChars.get();
+    }
+    
+    private boolean exists(Field field, String value, BooleanSupplier database) {
+        FieldIndex index = indexes.get(field);
+        String key = normalize(value);
+        if (ready) {
+            if (!index.bloom.mightContain(key)) {
+                if (trustNegatives) {
+                    negativeHits.increment();
+                    return false;
+                }
+            } else if (index.exact.contains(key)) {
+                exactHits.increment();
+                return true;
+            }
+        }
+        
+        // 未命中精确集合或索引尚未预热：以数据库为准，并把确认存在的值补进索引
+        fallThroughs.increment();
+        boolean exists = database.getAsBoolean();
+        if (exists) {
+            add(field, value);
+        }
+        return exists;
+    }
+    
+    private void addAll(Field field, Collection<?> values) {
+        for (Object value : values) {
+            add(field, value);
+        }
+    }
+    
+    private void add(Field field, Object value) {
+        if (value == null) {
+            return;
+        }
+        String key = normalize(value.toString());
+        FieldIndex index = indexes.get(field);
+        if (index.exact.add(key)) {
+            index.bloom.put(key);
+            index.exactChars.addAndGet(key.length());
+        }
+    }
+    
+    /**
+     * 与utf8mb4_unicode_ci的比较结果保持一致：不区分大小写，忽略末尾空格
+     */
+    private static String normalize(String value) {
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return value.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+    
+    private Counter lookupCounter(String result) {
+        return Counter.builder("healthtrack.availability.lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private static final class FieldIndex {
+        private final BloomFilter bloom;
+        private final ConcurrentSkipListSet<String> exact = new ConcurrentSkipListSet<>();
+        private final AtomicLong exactChars = new AtomicLong();
+        
+        private FieldIndex(long expectedInsertions, double falsePositiveRate) {
+            this.bloom = new BloomFilter(expectedInsertions, falsePositiveRate);
+        }
+    }
+}
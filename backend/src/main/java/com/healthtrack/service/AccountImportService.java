@@ -0,0 +1,315 @@
+package com.healthtrack.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.healthtrack.dto.AccountImportRecord;
+import com.healthtrack.dto.ImportReport;
+import com.healthtrack.entity.Doctor;
+import com.healthtrack.entity.User;
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.repository.DoctorRepository;
+import com.healthtrack.repository.UserRepository;
+import com.healthtrack.security.BoundedPasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 医院批量开户：逐行流式读取CSV或NDJSON，按批并行哈希密码并以JDBC批量插入。
+ * 单行格式错误或唯一字段冲突只跳过该行；批次写库失败只回滚该批次，不中断整个导入。
+ */
+@Service
+public class AccountImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AccountImportService.class);
+    
+    public enum Format {
+        CSV, NDJSON;
+        
+        public static Format fromContentType(String contentType) {
+            String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+            if (type.startsWith("text/csv")) {
+                return CSV;
+            } else if (type.startsWith("application/x-ndjson") || type.startsWith("application/json")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Unsupported import format: " + contentType);
+        }
+    }
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private AccountAvailabilityIndex availabilityIndex;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${account-import.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${account-import.max-row-errors:1000}")
+    private int maxRowErrors;
+    
+    private ObjectReader recordReader;
+    
+    @PostConstruct
+    public void init() {
+        recordReader = objectMapper.readerFor(AccountImportRecord.class);
+    }
+    
+    public ImportReport importAccounts(InputStream input, Format format, UserRole userType) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportReport report = new ImportReport(userType.name());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        
+        String[] header = null;
+        long lineNumber = 0;
+        if (format == Format.CSV) {
+            String headerLine = reader.readLine();
+            lineNumber++;
+            if (headerLine == null) {
+                return report;
+            }
+            header = parseHeader(headerLine);
+        }
+        
+        List<AccountImportRecord> batch = new ArrayList<>(batchSize);
+        int batchNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            report.incrementTotalRows();
+            try {
+                AccountImportRecord record = format == Format.CSV ? parseCsv(header, line) : recordReader.readValue(line);
+                record.setLine(lineNumber);
+                validate(record, userType);
+                batch.add(record);
+            } catch (IOException | IllegalArgumentException e) {
+                report.addRowError(lineNumber, e.getMessage(), maxRowErrors);
+                continue;
+            }
+            if (batch.size() >= batchSize) {
+                importBatch(++batchNumber, batch, userType, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(++batchNumber, batch, userType, report);
+        }
+        
+        report.setElapsedMs(System.currentTimeMillis() - start);
+        logger.info("Imported {} of {} {} rows in {} ms ({} rejected, {} in failed batches)",
+                report.getImported(), report.getTotalRows(), userType, report.getElapsedMs(),
+                report.getRejectedRows(), report.getFailedRows());
+        return report;
+    }
+    
+    private void importBatch(int batchNumber, List<AccountImportRecord> records, UserRole userType,
+                             ImportReport report) {
+        List<AccountImportRecord> accepted = rejectDuplicates(records, userType, report);
+        if (accepted.isEmpty()) {
+            return;
+        }
+        
+        List<String> encoded = encodeAll(accepted.stream()
+                .map(AccountImportRecord::getPassword)
+                .collect(Collectors.toList()));
+        try {
+            if (userType == UserRole.DOCTOR) {
+                List<Doctor> doctors = new ArrayList<>(accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    AccountImportRecord record = accepted.get(i);
+                    doctors.add(new Doctor(record.getUsername(), encoded.get(i), record.getLicenseId(),
+                            record.getName(), record.getPhone(), record.getSpecialization()));
+                }
+                transactionTemplate.executeWithoutResult(status -> doctorRepository.saveAll(doctors));
+                doctors.forEach(availabilityIndex::recordDoctor);
+            } else {
+                List<User> users = new ArrayList<>(accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    AccountImportRecord record = accepted.get(i);
+                    users.add(new User(record.getUsername(), encoded.get(i), record.getHealthId(),
+                            record.getName(), record.getPhone()));
+                }
+                transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(users));
+                users.forEach(availabilityIndex::recordUser);
+            }
+            report.addImported(accepted.size());
+        } catch (RuntimeException e) {
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            logger.warn("Import batch {} failed: {}", batchNumber, message);
+            report.addBatchFailure(batchNumber, accepted.get(0).getLine(),
+                    accepted.get(accepted.size() - 1).getLine(), accepted.size(), message);
+        }
+    }
+    
+    /**
+     * 写库前剔除与已有账号或本批次内其他行冲突的记录，避免一行冲突拖垮整个批次。
+     * 跨批次的重复由可用性索引覆盖，因为已提交批次会立即写入索引。
+     */
+    private List<AccountImportRecord> rejectDuplicates(List<AccountImportRecord> records, UserRole userType,
+                                                       ImportReport report) {
+        boolean doctor = userType == UserRole.DOCTOR;
+        Set<String> usernames = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        Set<Long> identifiers = new HashSet<>();
+        List<AccountImportRecord> accepted = new ArrayList<>(records.size());
+        for (AccountImportRecord record : records) {
+            Long identifier = doctor ? record.getLicenseId() : record.getHealthId();
+            String conflict = null;
+            if (!usernames.add(record.getUsername()) || availabilityIndex.usernameExists(record.getUsername(), doctor)) {
+                conflict = "Username already exists: " + record.getUsername();
+            } else if (record.getPhone() != null
+                    && (!phones.add(record.getPhone()) || availabilityIndex.phoneExists(record.getPhone(), doctor))) {
+                conflict = "Phone already exists: " + record.getPhone();
+            } else if (identifier != null && (!identifiers.add(identifier) || (doctor
+                    ? availabilityIndex.licenseIdExists(identifier) : availabilityIndex.healthIdExists(identifier)))) {
+                conflict = (doctor ? "License ID" : "Health ID") + " already exists: " + identifier;
+            }
+            
+            if (conflict != null) {
+                report.addRowError(record.getLine(), conflict, maxRowErrors);
+            } else {
+                accepted.add(record);
+            }
+        }
+        return accepted;
+    }
+    
+    private List<String> encodeAll(List<String> rawPasswords) {
+        if (passwordEncoder instanceof BoundedPasswordEncoder) {
+            return ((BoundedPasswordEncoder) passwordEncoder).encodeAll(rawPasswords);
+        }
+        return rawPasswords.stream().map(passwordEncoder::encode).collect(Collectors.toList());
+    }
+    
+    private void validate(AccountImportRecord record, UserRole userType) {
+        if (isBlank(record.getUsername())) {
+            throw new IllegalArgumentException("Username is required");
+        }
+        if (isBlank(record.getPassword())) {
+            throw new IllegalArgumentException("Password is required");
+        }
+        if (userType == UserRole.DOCTOR && record.getSpecialization() != null
+                && (record.getSpecialization() < 1 || record.getSpecialization() > 10)) {
+            throw new IllegalArgumentException("Unknown specialization: " + record.getSpecialization());
+        }
+    }
+    
+    private static String[] parseHeader(String headerLine) {
+        List<String> columns = splitCsv(headerLine);
+        String[] header = new String[columns.size()];
+        for (int i = 0; i < header.length; i++) {
+            // 列名忽略大小写与下划线：health_id、healthId、HEALTHID 等价
+            header[i] = columns.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT);
+        }
+        return header;
+    }
+    
+    private static AccountImportRecord parseCsv(String[] header, String line) {
+        List<String> values = splitCsv(line);
+        AccountImportRecord record = new AccountImportRecord();
+        for (int i = 0; i < header.length && i < values.size(); i++) {
+            String value = values.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            switch (header[i]) {
+                case "username":
+                    record.setUsername(value);
+                    break;
+                case "password":
+                    record.setPassword(value);
+                    break;
+                case "name":
+                    record.setName(value);
+                    break;
+                case "phone":
+                    record.setPhone(value);
+                    break;
+                case "healthid":
+                    record.setHealthId(Long.valueOf(value));
+                    break;
+                case "licenseid":
+                    record.setLicenseId(Long.valueOf(value));
+                    break;
+                case "specialization":
+                    record.setSpecialization(Integer.valueOf(value));
+                    break;
+                default:
+                    // 忽略未知列
+            }
+        }
+        return record;
+    }
+    
+    /**
+     * 按RFC 4180拆分一行CSV：支持双引号包裹与""转义，不支持字段内换行。
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
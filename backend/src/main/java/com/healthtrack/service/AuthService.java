@@ -5,7 +5,10 @@ import com.healthtrack.dto.LoginRequest;
 import com.healthtrack.dto.RegisterRequest;
 import com.healthtrack.entity.Doctor;
 import com.healthtrack.entity.User;
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.security.JwtPrincipal;
 import com.healthtrack.security.JwtUtils;
+import com.healthtrack.security.UserTypeAuthenticationToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -29,47 +32,22 @@ public class AuthService {
     @Autowired
     private JwtUtils jwtUtils;
     
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
     public AuthResponse login(LoginRequest loginRequest) {
-        try {
-            // 设置当前线程的用户类型，用于UnifiedUserDetailsService判断
-            UnifiedUserDetailsService.setCurrentUserType(loginRequest.getUserType());
-            
-            Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                    loginRequest.getUsername(),
-                    loginRequest.getPassword()
-                )
-            );
-            
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            String jwt = jwtUtils.generateJwtToken(authentication);
-            
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            
-            // 根据用户类型创建不同的响应
-            if (userDetails instanceof User) {
-                User user = (User) userDetails;
-                return new AuthResponse(
-                    jwt,
-                    user.getId(),
-                    user.getUsername(),
-                    "USER"
-                );
-            } else if (userDetails instanceof Doctor) {
-                Doctor doctor = (Doctor) userDetails;
-                return new AuthResponse(
-                    jwt,
-                    doctor.getId(),
-                    doctor.getUsername(),
-                    "DOCTOR"
-                );
-            } else {
-                throw new RuntimeException("Unknown user type");
-            }
-        } finally {
-            // 清理ThreadLocal，避免内存泄漏
-            UnifiedUserDetailsService.clearCurrentUserType();
-        }
+        // 用户类型随认证令牌传递，由UserTypeAuthenticationProvider选择查找医生或普通用户
+        UserRole userType = "DOCTOR".equals(loginRequest.getUserType()) ? UserRole.DOCTOR : UserRole.USER;
+        
+        Authentication authentication = authenticationManager.authenticate(
+            new UserTypeAuthenticationToken(
+                loginRequest.getUsername(),
+                loginRequest.getPassword(),
+                userType
+            )
+        );
+        
+        return createAuthResponse(authentication);
     }
     
     public AuthResponse register(RegisterRequest registerRequest) {
@@ -84,6 +62,28 @@ public class AuthService {
         }
     }
     
+    /**
+     * 用刷新令牌换取新的访问令牌与刷新令牌，不涉及密码校验。
+     */
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        JwtPrincipal principal = rotation.getPrincipal();
+        AuthResponse response = new AuthResponse(
+            jwtUtils.generateJwtToken(principal),
+            principal.getId(),
+            principal.getUsername(),
+            principal.getUserType().name()
+        );
+        response.setRefreshToken(rotation.getRefreshToken());
+        return response;
+    }
+    
+    public void logout(String refreshToken) {
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+    }
+    
     private AuthResponse registerUser(RegisterRequest registerRequest) {
         // 检查用户名是否已存在
         if (userService.existsByUsername(registerRequest.getUsername())) {
@@ -95,8 +95,10 @@ public class AuthService {
         
         User savedUser = userService.createUser(user);
         
-        // 自动登录
-        return login(new LoginRequest(registerRequest.getUsername(), registerRequest.getPassword(), registerRequest.getUserType()));
+        // 自动登录：直接由新保存的实体签发令牌，避免再走一次认证与BCrypt校验
+        return createAuthResponse(
+            new UsernamePasswordAuthenticationToken(savedUser, null, savedUser.getAuthorities())
+        );
     }
     
     private AuthResponse registerDoctor(RegisterRequest registerRequest) {
@@ -110,7 +112,42 @@ public class AuthService {
         
         Doctor savedDoctor = doctorService.createDoctor(doctor);
         
-        // 自动登录
-        return login(new LoginRequest(registerRequest.getUsername(), registerRequest.getPassword(), registerRequest.getUserType()));
+        // 自动登录：直接由新保存的实体签发令牌，避免再走一次认证与BCrypt校验
+        return createAuthResponse(
+            new UsernamePasswordAuthenticationToken(savedDoctor, null, savedDoctor.getAuthorities())
+        );
+    }
+    
+    private AuthResponse createAuthResponse(Authentication authentication) {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        String jwt = jwtUtils.generateJwtToken(authentication);
+        
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        AuthResponse response = buildAuthResponse(jwt, userDetails);
+        response.setRefreshToken(refreshTokenService.issue(JwtPrincipal.from(userDetails)));
+        return response;
+    }
+    
+    private AuthResponse buildAuthResponse(String jwt, UserDetails userDetails) {
+        // 根据用户类型创建不同的响应
+        if (userDetails instanceof User) {
+            User user = (User) userDetails;
+            return new AuthResponse(
+                jwt,
+                user.getId(),
+                user.getUsername(),
+                "USER"
+            );
+        } else if (userDetails instanceof Doctor) {
+            Doctor doctor = (Doctor) userDetails;
+            return new AuthResponse(
+                jwt,
+                doctor.getId(),
+                doctor.getUsername(),
+                "DOCTOR"
+            );
+        } else {
+            throw new RuntimeException("Unknown user type");
+        }
     }
 }
\ No newline at end of file
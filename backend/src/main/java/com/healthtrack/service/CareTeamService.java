@@ -0,0 +1,145 @@
+package com.healthtrack.service;
+
+import com.healthtrack.entity.User;
+import com.healthtrack.repository.DoctorRepository;
+import com.healthtrack.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 患者与主治医生的对应关系。读数写入路径按healthId查主治医生，结果在本地缓存ttl秒；
+ * 本实例上的改派立即生效，其他实例最迟ttl秒后生效。
+ */
+@Service
+public class CareTeamService {
+    
+    // 缓存中表示“没有主治医生”，与查不到区分
+    private static final long NO_DOCTOR = 0L;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Value("${care-team.cache-ttl-seconds:60}")
+    private long cacheTtlSeconds;
+    
+    @Value("${care-team.cache-max-entries:100000}")
+    private int maxCachedPatients;
+    
+    private final Map<Long, CachedDoctor> doctorByHealthId = new ConcurrentHashMap<>();
+    private volatile long nextPurgeAt;
+    
+    /**
+     * 把healthId对应的患者分配给医生，doctorId为null表示取消分配。
+     * @throws IllegalArgumentException 患者或医生不存在
+     */
+    @Transactional
+    public void assign(long healthId, Long doctorId) {
+        User user = userRepository.findByHealthId(healthId)
+                .orElseThrow(() -> new IllegalArgumentException("No user with healthId " + healthId));
+        if (doctorId != null && !doctorRepository.existsById(doctorId)) {
+            throw new IllegalArgumentException("No doctor with id " + doctorId);
+        }
+        user.setDoctorId(doctorId);
+        // 提交后再失效缓存，否则并发的查询可能在提交前把旧值重新放回缓存
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                doctorByHealthId.remove(healthId);
+            }
+        });
+    }
+    
+    public List<User> findPatients(long doctorId) {
+        return userRepository.findPatientsByDoctorId(doctorId);
+    }
+    
+    /**
+     * healthId对应的患者当前是否由该医生主治。用于访问控制，直接查库而不走缓存，改派后立即生效。
+     */
+    public boolean isPatientOf(long doctorId, long healthId) {
+        return userRepository.findByHealthId(healthId)
+                .map(user -> user.getDoctorId() != null && user.getDoctorId() == doctorId)
+                .orElse(false);
+    }
+    
+    /**
+     * 批量查询主治医生，返回healthId到doctorId的映射，没有主治医生的患者不在结果中。未命中缓存的healthId合并为一次查询。
+     */
+    public Map<Long, Long> findDoctorIds(Collection<Long> healthIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, Long> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long healthId : healthIds) {
+            CachedDoctor cached = doctorByHealthId.get(healthId);
+            if (cached != null && cached.expiresAt > now) {
+                if (cached.doctorId != NO_DOCTOR) {
+                    result.put(healthId, cached.doctorId);
+                }
+            } else {
+                missing.add(healthId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        
+        Map<Long, Long> loaded = new HashMap<>();
+        for (Object[] row : userRepository.findDoctorIdsByHealthIds(missing)) {
+            if (row[1] != null) {
+                loaded.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        long expiresAt = now + TimeUnit.SECONDS.toMillis(cacheTtlSeconds);
+        purgeExpired(now);
+        for (Long healthId : missing) {
+            Long doctorId = loaded.get(healthId);
+            if (doctorId != null) {
+                result.put(healthId, doctorId);
+            }
+            if (doctorByHealthId.size() < maxCachedPatients) {
+                doctorByHealthId.put(healthId, new CachedDoctor(doctorId != null ? doctorId : NO_DOCTOR, expiresAt));
+            }
+        }
+        return result;
+    }
+    
+    private void purgeExpired(long now) {
+        // 缓存接近上限时才扫描，且每秒最多一次
+        if (doctorByHealthId.size() < maxCachedPatients || now < nextPurgeAt) {
+            return;
+        }
+        nextPurgeAt = now + 1000;
+        Iterator<CachedDoctor> iterator = doctorByHealthId.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt <= now) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    private static final class CachedDoctor {
+        private final long doctorId;
+        private final long expiresAt;
+        
+        private CachedDoctor(long doctorId, long expiresAt) {
+            this.doctorId = doctorId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
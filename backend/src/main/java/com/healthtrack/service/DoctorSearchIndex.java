@@ -0,0 +1,299 @@
+package com.healthtrack.service;
+
+import com.healthtrack.dto.DoctorSearchResult;
+import com.healthtrack.dto.DoctorSummary;
+import com.healthtrack.repository.DoctorRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 医生检索的内存索引：规范化姓名上的前缀树，加上按专科与认证状态划分的位图，位图直接以医生id为下标。
+ * 启动时从数据库分页加载，之后由DoctorSearchIndexListener在事务提交后同步，查询不访问数据库。
+ */
+@Service
+public class DoctorSearchIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DoctorSearchIndex.class);
+    
+    // 专科编码1-10，下标0存放未设置专科的医生
+    private static final int SPECIALIZATION_SLOTS = 11;
+    private static final int WARM_UP_PAGE_SIZE = 10000;
+    
+    @Autowired
+    private DoctorRepository doctorRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TrieNode root = new TrieNode();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final RoaringBitmap verified = new RoaringBitmap();
+    private final RoaringBitmap unverified = new RoaringBitmap();
+    private final RoaringBitmap[] bySpecialization = new RoaringBitmap[SPECIALIZATION_SLOTS];
+    
+    // 姓名重复度很高，按字典编码存储；nameCodes[id]为0表示没有姓名
+    private final List<String> nameDictionary = new ArrayList<>();
+    private final Map<String, Integer> nameCodesByName = new HashMap<>();
+    private int[] nameCodes = new int[1024];
+    private byte[] specializations = new byte[1024];
+    
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < SPECIALIZATION_SLOTS; i++) {
+            bySpecialization[i] = new RoaringBitmap();
+        }
+        nameDictionary.add(null);
+        Gauge.builder("healthtrack.doctor.search.size", this, DoctorSearchIndex::size)
+                .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        long after = 0;
+        List<DoctorSummary> page;
+        do {
+            page = doctorRepository.scanSummaries(after, PageRequest.of(0, WARM_UP_PAGE_SIZE));
+            for (DoctorSummary doctor : page) {
+                // 预热期间监听器可能已写入更新的数据，这里不覆盖
+                put(doctor.getId(), doctor.getName(), doctor.getSpecialization(), doctor.getVerified(), false);
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == WARM_UP_PAGE_SIZE);
+        logger.info("Doctor search index built in {} ms: {} doctors, {} distinct names",
+                System.currentTimeMillis() - start, size(), nameDictionary.size() - 1);
+    }
+    
+    public void upsert(Long id, String name, Integer specialization, Boolean isVerified) {
+        put(id, name, specialization, isVerified, true);
+    }
+    
+    public void remove(Long id) {
+        if (!indexable(id)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked((int) (long) id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 姓名前缀检索，附带专科与认证状态的分面计数；每个分面的计数只应用其余分面的筛选条件。
+     */
+    public DoctorSearchResult search(String namePrefix, Integer specialization, Boolean isVerified, int limit) {
+        String prefix = normalize(namePrefix);
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = prefix.isEmpty() ? all : root.find(prefix);
+            if (matches == null) {
+                matches = new RoaringBitmap();
+            }
+            RoaringBitmap specializationFilter = specialization != null ? specializationBitmap(specialization) : null;
+            RoaringBitmap verifiedFilter = isVerified == null ? null
+                    : isVerified ? verified : unverified;
+            
+            RoaringBitmap matchesForSpecialization = verifiedFilter != null
+                    ? RoaringBitmap.and(matches, verifiedFilter) : matches;
+            RoaringBitmap matchesForVerified = specializationFilter != null
+                    ? RoaringBitmap.and(matches, specializationFilter) : matches;
+            RoaringBitmap hits = specializationFilter != null
+                    ? RoaringBitmap.and(matchesForSpecialization, specializationFilter) : matchesForSpecialization;
+            
+            Map<Integer, Long> specializationCounts = new LinkedHashMap<>();
+            for (int i = 1; i < SPECIALIZATION_SLOTS; i++) {
+                long count = RoaringBitmap.andCardinality(matchesForSpecialization, bySpecialization[i]);
+                if (count > 0) {
+                    specializationCounts.put(i, count);
+                }
+            }
+            Map<Boolean, Long> verifiedCounts = new LinkedHashMap<>();
+            long verifiedCount = RoaringBitmap.andCardinality(matchesForVerified, verified);
+            verifiedCounts.put(true, verifiedCount);
+            verifiedCounts.put(false, matchesForVerified.getLongCardinality() - verifiedCount);
+            
+            List<DoctorSummary> items = new ArrayList<>(Math.min(limit, hits.getCardinality()));
+            IntIterator iterator = hits.getIntIterator();
+            while (iterator.hasNext() && items.size() < limit) {
+                int id = iterator.next();
+                int slot = specializations[id];
+                items.add(new DoctorSummary((long) id, nameDictionary.get(nameCodes[id]),
+                        slot == 0 ? null : slot, verified.contains(id)));
+            }
+            return new DoctorSearchResult(hits.getLongCardinality(), items, specializationCounts, verifiedCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return all.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void put(Long id, String name, Integer specialization, Boolean isVerified, boolean overwrite) {
+        if (!indexable(id)) {
+            return;
+        }
+        int key = (int) (long) id;
+        lock.writeLock().lock();
+        try {
+            if (all.contains(key)) {
+                if (!overwrite) {
+                    return;
+                }
+                removeLocked(key);
+            }
+            ensureCapacity(key);
+            all.add(key);
+            if (Boolean.TRUE.equals(isVerified)) {
+                verified.add(key);
+            } else {
+                unverified.add(key);
+            }
+            int slot = specializationSlot(specialization);
+            specializations[key] = (byte) slot;
+            bySpecialization[slot].add(key);
+            
+            String normalized = normalize(name);
+            if (!normalized.isEmpty()) {
+                nameCodes[key] = nameCodesByName.computeIfAbsent(name, n -> {
+                    nameDictionary.add(n);
+                    return nameDictionary.size() - 1;
+                });
+                root.insert(normalized, key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void removeLocked(int key) {
+        if (!all.contains(key)) {
+            return;
+        }
+        all.remove(key);
+        verified.remove(key);
+        unverified.remove(key);
+        bySpecialization[specializations[key]].remove(key);
+        String name = nameDictionary.get(nameCodes[key]);
+        if (name != null) {
+            root.remove(normalize(name), key);
+        }
+        nameCodes[key] = 0;
+        specializations[key] = 0;
+    }
+    
+    private void ensureCapacity(int key) {
+        if (key >= nameCodes.length) {
+            int capacity = Math.max(key + 1, nameCodes.length + (nameCodes.length >> 1));
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+            specializations = Arrays.copyOf(specializations, capacity);
+        }
+    }
+    
+    private RoaringBitmap specializationBitmap(int specialization) {
+        return specialization >= 1 && specialization < SPECIALIZATION_SLOTS
+                ? bySpecialization[specialization] : new RoaringBitmap();
+    }
+    
+    private static int specializationSlot(Integer specialization) {
+        return specialization != null && specialization >= 1 && specialization < SPECIALIZATION_SLOTS
+                ? specialization : 0;
+    }
+    
+    private static boolean indexable(Long id) {
+        if (id == null || id < 0 || id > Integer.MAX_VALUE) {
+            if (id != null) {
+                logger.warn("Doctor id {} is outside the search index range", id);
+            }
+            return false;
+        }
+        return true;
+    }
+    
+    // 全角转半角、统一小写、去除空白，保证"张 伟"与"张伟"等价
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(value, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder builder = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * 前缀树节点：subtree记录以该节点为前缀的所有医生，前缀查询只需定位到节点。
+     */
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>(4);
+        private final RoaringBitmap subtree = new RoaringBitmap();
+        
+        void insert(String key, int id) {
+            TrieNode node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode());
+                node.subtree.add(id);
+            }
+        }
+        
+        void remove(String key, int id) {
+            TrieNode node = this;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                TrieNode child = node.children.get(key.charAt(i));
+                if (child == null) {
+                    return;
+                }
+                child.subtree.remove(id);
+                if (child.subtree.isEmpty()) {
+                    node.children.remove(key.charAt(i));
+                    return;
+                }
+                node = child;
+            }
+        }
+        
+        RoaringBitmap find(String prefix) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            return node != null ? node.subtree : null;
+        }
+    }
+}
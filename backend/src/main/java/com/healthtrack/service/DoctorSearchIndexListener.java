@@ -0,0 +1,54 @@
+package com.healthtrack.service;
+
+import com.healthtrack.entity.Doctor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Doctor的JPA实体监听器，把新增、修改、删除同步到DoctorSearchIndex。
+ * 变更在事务提交后才生效，回滚的批次（例如批量导入中失败的批次）不会污染索引。
+ */
+@Component
+public class DoctorSearchIndexListener {
+    
+    // 实体监听器由Hibernate在EntityManagerFactory初始化时创建，延迟获取索引以避免循环依赖
+    @Autowired
+    private ObjectProvider<DoctorSearchIndex> searchIndex;
+    
+    @PostPersist
+    @PostUpdate
+    public void onSave(Doctor doctor) {
+        // 立即复制字段，实体在提交前后仍可能被修改
+        Long id = doctor.getId();
+        String name = doctor.getName();
+        Integer specialization = doctor.getSpecialization();
+        Boolean verified = doctor.getVerified();
+        afterCommit(() -> searchIndex.getObject().upsert(id, name, specialization, verified));
+    }
+    
+    @PostRemove
+    public void onRemove(Doctor doctor) {
+        Long id = doctor.getId();
+        afterCommit(() -> searchIndex.getObject().remove(id));
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,13 +1,18 @@
 package com.healthtrack.service;
 
+import com.healthtrack.dto.DoctorSummary;
+import com.healthtrack.dto.KeysetPage;
 import com.healthtrack.entity.Doctor;
 import com.healthtrack.repository.DoctorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,9 +26,14 @@ public class DoctorService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private AccountAvailabilityIndex availabilityIndex;
+    
     public Doctor createDoctor(Doctor doctor) {
         doctor.setPassword(passwordEncoder.encode(doctor.getPassword()));
-        return doctorRepository.save(doctor);
+        Doctor saved = doctorRepository.save(doctor);
+        availabilityIndex.recordDoctor(saved);
+        return saved;
     }
     
     public Optional<Doctor> findByUsername(String username) {
@@ -42,8 +52,36 @@ public class DoctorService implements UserDetailsService {
         return doctorRepository.existsByPhone(phone);
     }
     
-    public List<Doctor> findAll() {
-        return doctorRepository.findAll();
+    /**
+     * 医生目录的一页：按id升序，从after之后开始，最多size条。
+     */
+    public KeysetPage<DoctorSummary> findDirectoryPage(Integer specialization, Boolean verified, long after, int size) {
+        // 多取一条用于判断是否还有下一页
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<DoctorSummary> rows;
+        if (specialization != null && verified != null) {
+            rows = doctorRepository.findDirectoryPageBySpecializationAndVerified(specialization, verified, after, limit);
+        } else if (specialization != null) {
+            rows = doctorRepository.findDirectoryPageBySpecialization(specialization, after, limit);
+        } else if (verified != null) {
+            rows = doctorRepository.findDirectoryPageByVerified(verified, after, limit);
+        } else {
+            rows = doctorRepository.findDirectoryPage(after, limit);
+        }
+        
+        if (rows.size() > size) {
+            List<DoctorSummary> page = rows.subList(0, size);
+            return new KeysetPage<>(page, page.get(size - 1).getId());
+        }
+        return new KeysetPage<>(rows, null);
+    }
+    
+    // 已编码的密码，直接写入；实体经二级缓存加载，提交时同步更新缓存
+    @Transactional
+    public Optional<Doctor> updatePassword(Long id, String encodedPassword) {
+        Optional<Doctor> doctor = doctorRepository.findById(id);
+        doctor.ifPresent(account -> account.setPassword(encodedPassword));
+        return doctor;
     }
     
     public Optional<Doctor> findById(Long id) {
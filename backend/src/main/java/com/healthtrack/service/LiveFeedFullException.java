@@ -0,0 +1,18 @@
+package com.healthtrack.service;
+
+/**
+ * 本实例的实时推送连接数已达上限时抛出，调用方应返回503并提示稍后重连。
+ */
+public class LiveFeedFullException extends RuntimeException {
+    
+    private final int retryAfterSeconds;
+    
+    public LiveFeedFullException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,382 @@
+package com.healthtrack.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.entity.MetricType;
+import com.healthtrack.security.TokenRevokedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 医生工作台的实时推送（Server-Sent Events）。连接由Servlet异步请求持有，空闲连接不占用线程；
+ * 发布方只把事件放入各连接的有界队列，由少量发送线程写出。队列写满的连接视为慢消费者直接断开，
+ * 单次写出超过send-timeout的连接同样断开，并临时为卡住的线程补充发送线程，其他连接的推送不受影响。
+ * 客户端重连后应通过/api/doctors/me/patients/{healthId}/measurements补齐断开期间的数据。
+ */
+@Component
+public class LiveFeedHub {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LiveFeedHub.class);
+    
+    @Autowired
+    private CareTeamService careTeamService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${live-feed.sender-threads:2}")
+    private int senderThreads;
+    
+    @Value("${live-feed.max-sender-threads:64}")
+    private int maxSenderThreads;
+    
+    @Value("${live-feed.send-timeout-millis:5000}")
+    private long sendTimeoutMillis;
+    
+    @Value("${live-feed.subscriber-buffer:256}")
+    private int subscriberBuffer;
+    
+    @Value("${live-feed.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+    
+    @Value("${live-feed.max-subscribers:20000}")
+    private int maxSubscribers;
+    
+    @Value("${live-feed.max-subscribers-per-doctor:5}")
+    private int maxSubscribersPerDoctor;
+    
+    @Value("${live-feed.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+    
+    private final Map<Long, List<Subscriber>> subscribersByDoctor = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // 正在由发送线程写出的连接
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+    
+    private ThreadPoolExecutor senders;
+    private ScheduledExecutorService heartbeat;
+    
+    private Counter sent;
+    private Counter slowConsumers;
+    private Counter stalledConsumers;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        int threads = Math.max(1, senderThreads);
+        senders = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "live-feed-sender-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 心跳让代理不因空闲断开连接，也让已断开的客户端在写入失败时被及时清理
+        heartbeat.scheduleWithFixedDelay(() -> forEachSubscriber(s -> s.offer(Event.HEARTBEAT)),
+                heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        heartbeat.scheduleWithFixedDelay(this::checkStalledSends, 1, 1, TimeUnit.SECONDS);
+        
+        sent = meterRegistry.counter("healthtrack.livefeed.events.sent");
+        slowConsumers = meterRegistry.counter("healthtrack.livefeed.disconnected", "reason", "slow-consumer");
+        stalledConsumers = meterRegistry.counter("healthtrack.livefeed.disconnected", "reason", "send-timeout");
+        Gauge.builder("healthtrack.livefeed.subscribers", subscriberCount, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        forEachSubscriber(Subscriber::close);
+        senders.shutdown();
+    }
+    
+    /**
+     * 为医生建立一条推送连接，连接在expiresAt（访问令牌过期时间）或令牌tokenId被吊销时断开，客户端应带新令牌重连。
+     * 同一医生的连接数超过上限时断开其中最早的一条。
+     * @throws LiveFeedFullException 本实例连接数已达上限
+     */
+    public SseEmitter subscribe(long doctorId, String tokenId, long expiresAt) {
+        long timeout = expiresAt - System.currentTimeMillis();
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Token already expired");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new LiveFeedFullException("Live feed connection limit reached", retryAfterSeconds);
+        }
+        
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(doctorId, tokenId, emitter);
+        List<Subscriber> subscribers = subscribersByDoctor.compute(doctorId, (id, list) -> {
+            List<Subscriber> result = list != null ? list : new CopyOnWriteArrayList<>();
+            result.add(subscriber);
+            return result;
+        });
+        for (Subscriber oldest : subscribers) {
+            if (subscribers.size() <= maxSubscribersPerDoctor) {
+                break;
+            }
+            oldest.close();
+        }
+        
+        emitter.onCompletion(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        emitter.onTimeout(subscriber::close);
+        // 立即写出一条注释，使响应头与连接建立不必等待第一条数据
+        subscriber.offer(Event.CONNECTED);
+        return emitter;
+    }
+    
+    public boolean hasSubscribers(long doctorId) {
+        return subscribersByDoctor.containsKey(doctorId);
+    }
+    
+    /**
+     * 向医生的所有连接推送一条事件。payload只序列化一次；医生没有连接时直接返回。不会阻塞调用线程。
+     */
+    public void publish(long doctorId, String eventName, Object payload) {
+        List<Subscriber> subscribers = subscribersByDoctor.get(doctorId);
+        if (subscribers == null) {
+            return;
+        }
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            logger.warn("Failed to serialize {} event: {}", eventName, e.getMessage());
+            return;
+        }
+        Event event = new Event(eventName, data);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+    
+    // 在写线程上同步执行：没有任何连接时只有一次计数器读取
+    @EventListener
+    public void onMeasurementsWritten(MeasurementsWrittenEvent event) {
+        if (subscriberCount.get() == 0) {
+            return;
+        }
+        Set<Long> healthIds = new HashSet<>();
+        for (MeasurementBatch batch : event.getBatches()) {
+            healthIds.add(batch.getHealthId());
+        }
+        Map<Long, Long> doctorIds = careTeamService.findDoctorIds(healthIds);
+        for (MeasurementBatch batch : event.getBatches()) {
+            Long doctorId = doctorIds.get(batch.getHealthId());
+            if (doctorId != null && hasSubscribers(doctorId)) {
+                publish(doctorId, "readings", readings(batch));
+            }
+        }
+    }
+    
+    // 注销后令牌不能再用于重连，已建立的连接也随之关闭；注销很少发生，逐个比较即可
+    @EventListener
+    public void onTokenRevoked(TokenRevokedEvent event) {
+        if (event.getTokenId() == null || subscriberCount.get() == 0) {
+            return;
+        }
+        forEachSubscriber(s -> {
+            if (event.getTokenId().equals(s.tokenId)) {
+                s.close();
+            }
+        });
+    }
+    
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+    
+    private static Map<String, Object> readings(MeasurementBatch batch) {
+        MetricType[] metrics = new MetricType[batch.size()];
+        long[] timestamps = new long[batch.size()];
+        double[] values = new double[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            metrics[i] = batch.getMetric(i);
+            timestamps[i] = batch.getTimestamp(i);
+            values[i] = batch.getValue(i);
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("healthId", batch.getHealthId());
+        payload.put("metrics", metrics);
+        payload.put("timestamps", timestamps);
+        payload.put("values", values);
+        return payload;
+    }
+    
+    // 写出卡住超过send-timeout的连接被关闭；卡住的线程要等Tomcat的写超时才返回，
+    // 期间按卡住的线程数临时扩充发送线程池，线程返回后恢复原有大小
+    private void checkStalledSends() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        int stalled = 0;
+        for (Subscriber subscriber : sending) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > timeoutNanos) {
+                stalled++;
+                if (!subscriber.closed.get()) {
+                    stalledConsumers.increment();
+                    subscriber.close();
+                }
+            }
+        }
+        int threads = Math.min(Math.max(1, senderThreads) + stalled, Math.max(senderThreads, maxSenderThreads));
+        if (threads > senders.getMaximumPoolSize()) {
+            senders.setMaximumPoolSize(threads);
+            senders.setCorePoolSize(threads);
+        } else if (threads < senders.getCorePoolSize()) {
+            senders.setCorePoolSize(threads);
+            senders.setMaximumPoolSize(threads);
+        }
+    }
+    
+    private void forEachSubscriber(Consumer<Subscriber> action) {
+        for (List<Subscriber> subscribers : subscribersByDoctor.values()) {
+            subscribers.forEach(action);
+        }
+    }
+    
+    private static final class Event {
+        static final Event CONNECTED = new Event(null, "connected");
+        static final Event HEARTBEAT = new Event(null, "ping");
+        
+        private final String name;
+        private final String data;
+        
+        private Event(String name, String data) {
+            this.name = name;
+            this.data = data;
+        }
+        
+        SseEmitter.SseEventBuilder toSse() {
+            return name == null ? SseEmitter.event().comment(data) : SseEmitter.event().name(name).data(data);
+        }
+    }
+    
+    /**
+     * 一条连接。发布方与心跳只入队；emitter只由发送线程访问（同一时刻至多一个），
+     * 因此卡在慢连接上的写操作只会占用一个发送线程，不会阻塞发布方。
+     */
+    private final class Subscriber implements Runnable {
+        private final long doctorId;
+        private final String tokenId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // 当前这次写出开始的System.nanoTime()，0表示没有在写
+        private volatile long sendingSince;
+        
+        private Subscriber(long doctorId, String tokenId, SseEmitter emitter) {
+            this.doctorId = doctorId;
+            this.tokenId = tokenId;
+            this.emitter = emitter;
+        }
+        
+        void offer(Event event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                slowConsumers.increment();
+                close();
+                return;
+            }
+            schedule();
+        }
+        
+        /**
+         * 从注册表移除并安排发送线程结束响应；可重复调用。
+         */
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribersByDoctor.computeIfPresent(doctorId, (id, list) -> {
+                list.remove(this);
+                return list.isEmpty() ? null : list;
+            });
+            subscriberCount.decrementAndGet();
+            schedule();
+        }
+        
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+        
+        @Override
+        public void run() {
+            sending.add(this);
+            try {
+                Event event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    sendingSince = System.nanoTime();
+                    emitter.send(event.toSse());
+                    sendingSince = 0;
+                    sent.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或响应已结束
+                close();
+            } finally {
+                sendingSince = 0;
+                sending.remove(this);
+                scheduled.set(false);
+            }
+            if (closed.get()) {
+                queue.clear();
+                try {
+                    emitter.complete();
+                } catch (IllegalStateException ignored) {
+                    // 已经结束
+                }
+            } else if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
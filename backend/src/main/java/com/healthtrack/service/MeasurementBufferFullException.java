@@ -0,0 +1,18 @@
+package com.healthtrack.service;
+
+/**
+ * 读数写入缓冲已满时抛出，调用方应返回503并提示稍后重试。
+ */
+public class MeasurementBufferFullException extends RuntimeException {
+    
+    private final int retryAfterSeconds;
+    
+    public MeasurementBufferFullException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,148 @@
+package com.healthtrack.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthtrack.dto.IngestReport;
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.entity.MetricType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 体征读数上报：以Jackson流式解析请求体，直接填入按列存放的批次，不为每条读数创建对象。
+ * 单条读数不合法只拒绝该条；整批写入缓冲，由MeasurementWriteBuffer异步落库。
+ */
+@Service
+public class MeasurementIngestService {
+    
+    // 接受的未来时间偏差，容忍设备时钟误差
+    private static final long MAX_CLOCK_SKEW_MS = TimeUnit.MINUTES.toMillis(5);
+    
+    @Autowired
+    private MeasurementWriteBuffer writeBuffer;
+    
+    @Autowired
+    private MeasurementStore measurementStore;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${measurements.ingest.max-batch-samples:10000}")
+    private int maxBatchSamples;
+    
+    @Value("${measurements.ingest.max-age-days:365}")
+    private int maxAgeDays;
+    
+    @Value("${measurements.ingest.max-sample-errors:100}")
+    private int maxSampleErrors;
+    
+    @Value("${measurements.ingest.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+    
+    private JsonFactory jsonFactory;
+    
+    @PostConstruct
+    public void init() {
+        jsonFactory = objectMapper.getFactory();
+    }
+    
+    /**
+     * 请求体格式：{"samples":[{"metric":"HEART_RATE","timestamp":1700000000000,"value":72}, ...]}，timestamp为毫秒时间戳。
+     * @throws IllegalArgumentException 请求体结构错误或读数条数超过上限
+     * @throws MeasurementBufferFullException 写入缓冲已满
+     */
+    public IngestReport ingest(long healthId, InputStream body) throws IOException {
+        IngestReport report = new IngestReport();
+        MeasurementBatch batch = new MeasurementBatch(healthId, 256);
+        long now = System.currentTimeMillis();
+        long oldest = now - TimeUnit.DAYS.toMillis(maxAgeDays);
+        long newest = now + MAX_CLOCK_SKEW_MS;
+        
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            boolean seenSamples = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (!"samples".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                expect(token, JsonToken.START_ARRAY);
+                seenSamples = true;
+                int index = 0;
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    if (index == maxBatchSamples) {
+                        throw new IllegalArgumentException("Batch exceeds " + maxBatchSamples + " samples");
+                    }
+                    readSample(parser, index++, batch, report, oldest, newest);
+                }
+            }
+            if (!seenSamples) {
+                throw new IllegalArgumentException("Missing samples array");
+            }
+        }
+        
+        // 写库按主键顺序，告警规则按时间顺序处理读数，设备乱序上报的读数在这里排好
+        batch.sort();
+        if (batch.size() > 0 && !writeBuffer.offer(batch)) {
+            throw new MeasurementBufferFullException("Measurement write buffer is full", retryAfterSeconds);
+        }
+        report.setAccepted(batch.size());
+        return report;
+    }
+    
+    public MeasurementBatch findRange(long healthId, MetricType metric, long from, long to, int limit) {
+        return measurementStore.findRange(healthId, metric, from, to, limit);
+    }
+    
+    private void readSample(JsonParser parser, int index, MeasurementBatch batch, IngestReport report,
+                            long oldest, long newest) throws IOException {
+        String metricName = null;
+        long timestamp = Long.MIN_VALUE;
+        double value = Double.NaN;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("metric".equals(field) && token == JsonToken.VALUE_STRING) {
+                metricName = parser.getText();
+            } else if ("timestamp".equals(field) && token == JsonToken.VALUE_NUMBER_INT) {
+                timestamp = parser.getLongValue();
+            } else if ("value".equals(field) && token.isNumeric()) {
+                value = parser.getDoubleValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        
+        MetricType metric;
+        try {
+            metric = metricName != null ? MetricType.valueOf(metricName) : null;
+        } catch (IllegalArgumentException e) {
+            metric = null;
+        }
+        if (metric == null) {
+            report.addError(index, "Unknown metric: " + metricName, maxSampleErrors);
+        } else if (timestamp < oldest || timestamp > newest) {
+            report.addError(index, "Timestamp out of range: " + timestamp, maxSampleErrors);
+        } else if (!metric.accepts(value)) {
+            report.addError(index, "Value out of range for " + metric + ": " + value, maxSampleErrors);
+        } else {
+            batch.add(metric, timestamp, value);
+        }
+    }
+    
+    private static void expect(JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Malformed measurement batch: expected " + expected + " but found " + actual);
+        }
+    }
+}
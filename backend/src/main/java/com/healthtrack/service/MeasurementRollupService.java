@@ -0,0 +1,104 @@
+package com.healthtrack.service;
+
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.dto.RollupBucket;
+import com.healthtrack.dto.RollupSeries;
+import com.healthtrack.entity.MetricType;
+import com.healthtrack.entity.RollupResolution;
+import com.healthtrack.repository.MeasurementRollupRepository;
+import com.healthtrack.repository.MeasurementRollupRepository.RollupUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分钟、小时、天三级预聚合：写入时按桶累加后upsert，查询时选取不超过目标步长的最粗粒度，再把相邻的桶合并到目标步长。
+ */
+@Service
+public class MeasurementRollupService {
+    
+    private static final RollupResolution[] RESOLUTIONS = RollupResolution.values();
+    private static final MetricType[] METRICS = MetricType.values();
+    
+    @Autowired
+    private MeasurementRollupRepository rollupRepository;
+    
+    /**
+     * 在写入明细的同一事务中调用，batches须已剔除已存储的读数（见MeasurementStore.excludeStored）：
+     * MySQL开启rewriteBatchedStatements后逐行结果为SUCCESS_NO_INFO，无法据此识别重复读数。
+     * insertCounts为明细批量插入的逐行结果，仍为0的行不计入聚合。
+     */
+    public void apply(List<MeasurementBatch> batches, int[] insertCounts) {
+        List<RollupUpdate> updates = new ArrayList<>();
+        int n = 0;
+        for (MeasurementBatch batch : batches) {
+            // 同一批次属于同一用户且读数大致按时间排列，每个指标、粒度只需与最近的一个桶比较
+            RollupUpdate[][] current = new RollupUpdate[RESOLUTIONS.length][METRICS.length];
+            for (int i = 0; i < batch.size(); i++, n++) {
+                if (insertCounts != null && n < insertCounts.length && insertCounts[n] == 0) {
+                    continue;
+                }
+                MetricType metric = batch.getMetric(i);
+                long timestamp = batch.getTimestamp(i);
+                for (int r = 0; r < RESOLUTIONS.length; r++) {
+                    long bucketStart = RESOLUTIONS[r].bucketStart(timestamp);
+                    RollupUpdate update = current[r][metric.ordinal()];
+                    if (update == null || update.getBucket().getBucketStart() != bucketStart) {
+                        update = new RollupUpdate(batch.getHealthId(), metric, RESOLUTIONS[r], new RollupBucket(bucketStart));
+                        current[r][metric.ordinal()] = update;
+                        updates.add(update);
+                    }
+                    update.getBucket().add(timestamp, batch.getValue(i));
+                }
+            }
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+        rollupRepository.upsert(coalesce(updates));
+    }
+    
+    /**
+     * 返回[from, to)内最多约points个桶。首尾的桶按对齐边界完整计算，可能包含from之前或to之后的读数。
+     */
+    public RollupSeries query(long healthId, MetricType metric, long from, long to, int points) {
+        long step = Math.max(RollupResolution.MINUTE.getMillis(), -Math.floorDiv(-(to - from), points));
+        RollupResolution resolution = RollupResolution.coarsestWithin(step);
+        step = step / resolution.getMillis() * resolution.getMillis();
+        
+        List<RollupBucket> stored = rollupRepository.findRange(healthId, metric, resolution, resolution.bucketStart(from), to);
+        if (step == resolution.getMillis()) {
+            return new RollupSeries(resolution, step, stored);
+        }
+        List<RollupBucket> merged = new ArrayList<>();
+        RollupBucket group = null;
+        for (RollupBucket bucket : stored) {
+            long groupStart = Math.floorDiv(bucket.getBucketStart(), step) * step;
+            if (group == null || group.getBucketStart() != groupStart) {
+                group = new RollupBucket(groupStart);
+                merged.add(group);
+            }
+            group.merge(bucket);
+        }
+        return new RollupSeries(resolution, step, merged);
+    }
+    
+    // 排序后合并同一个桶的多个增量（多个批次交错写入同一用户时会出现），并让并发的写线程以相同顺序锁行
+    private static List<RollupUpdate> coalesce(List<RollupUpdate> updates) {
+        Collections.sort(updates);
+        List<RollupUpdate> result = new ArrayList<>(updates.size());
+        RollupUpdate previous = null;
+        for (RollupUpdate update : updates) {
+            if (previous != null && previous.compareTo(update) == 0) {
+                previous.getBucket().merge(update.getBucket());
+            } else {
+                result.add(update);
+                previous = update;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,353 @@
+package com.healthtrack.service;
+
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.entity.MetricType;
+import com.healthtrack.repository.MeasurementChunkRepository;
+import com.healthtrack.repository.MeasurementChunkRepository.Chunk;
+import com.healthtrack.repository.MeasurementRepository;
+import com.healthtrack.repository.MeasurementRepository.Series;
+import com.healthtrack.util.GorillaCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读数的两级存储：新写入的读数先落在明细表measurement，后台线程定期把早于
+ * compaction-delay的完整时间窗口压缩成measurement_chunk中的Gorilla编码块，然后删除对应明细行。
+ * 查询同时读取两级并按时间戳合并，同一时间点以先写入的读数为准（与明细表的INSERT IGNORE一致）。
+ */
+@Component
+public class MeasurementStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MeasurementStore.class);
+    
+    // 块的时间窗口，已写入的块依赖它定位，不能随配置修改
+    public static final long CHUNK_WINDOW_MS = TimeUnit.HOURS.toMillis(2);
+    
+    @Autowired
+    private MeasurementRepository measurementRepository;
+    
+    @Autowired
+    private MeasurementChunkRepository chunkRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${measurements.storage.compaction-enabled:true}")
+    private boolean compactionEnabled;
+    
+    @Value("${measurements.storage.compaction-interval-seconds:60}")
+    private long compactionIntervalSeconds;
+    
+    @Value("${measurements.storage.compaction-delay-minutes:10}")
+    private long compactionDelayMinutes;
+    
+    @Value("${measurements.storage.compaction-max-rows:100000}")
+    private int compactionMaxRows;
+    
+    private ScheduledExecutorService compactor;
+    
+    private Counter compactedSamples;
+    private Counter compactedBytes;
+    
+    @PostConstruct
+    public void init() {
+        compactedSamples = meterRegistry.counter("healthtrack.measurements.compacted.samples");
+        compactedBytes = meterRegistry.counter("healthtrack.measurements.compacted.bytes");
+        if (!compactionEnabled) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "measurement-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compact(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                logger.error("Measurement compaction failed: {}", e.getMessage());
+            }
+        }, compactionIntervalSeconds, compactionIntervalSeconds, TimeUnit.SECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 按时间升序读取[from, to)内的读数，最多limit条。
+     */
+    public MeasurementBatch findRange(long healthId, MetricType metric, long from, long to, int limit) {
+        // 先读明细再读块：压缩若在两次读取之间提交，读数会在两边各出现一次并在合并时去重，而不会两边都缺失
+        MeasurementBatch head = measurementRepository.findRange(healthId, metric, from, to, limit);
+        List<Chunk> chunks = chunkRepository.findOverlapping(healthId, metric, from, to, CHUNK_WINDOW_MS);
+        long total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.getSampleCount();
+        }
+        MeasurementBatch compacted = new MeasurementBatch(healthId, (int) Math.min(limit, total));
+        long[] timestamps = new long[0];
+        double[] values = new double[0];
+        for (Chunk chunk : chunks) {
+            if (compacted.size() >= limit) {
+                break;
+            }
+            if (timestamps.length < chunk.getSampleCount()) {
+                timestamps = new long[chunk.getSampleCount()];
+                values = new double[chunk.getSampleCount()];
+            }
+            int n = GorillaCodec.decode(chunk.getData(), timestamps, values, to);
+            int i = lowerBound(timestamps, n, from);
+            for (; i < n && compacted.size() < limit; i++) {
+                compacted.add(metric, timestamps[i], values[i]);
+            }
+        }
+        return merge(compacted, head, limit);
+    }
+    
+    /**
+     * 去掉已经存储过（在明细表或压缩块中）以及在本次写入中重复出现的读数，返回与batches一一对应的批次，
+     * 同一时间点只保留最先接受的一条；没有重复的批次原样返回。
+     * 在写入事务中调用。同一用户的批次只由一个写线程写入，检查与插入之间不会有同一用户的其他写入。
+     */
+    public List<MeasurementBatch> excludeStored(List<MeasurementBatch> batches, int rows) {
+        int[] batchIndex = new int[rows];
+        int[] rowIndex = new int[rows];
+        Integer[] order = new Integer[rows];
+        int n = 0;
+        for (int b = 0; b < batches.size(); b++) {
+            for (int i = 0; i < batches.get(b).size(); i++) {
+                batchIndex[n] = b;
+                rowIndex[n] = i;
+                order[n] = n;
+                n++;
+            }
+        }
+        // 稳定排序，同一时间点的多条读数保持接受顺序
+        Arrays.sort(order, (a, b) -> {
+            MeasurementBatch x = batches.get(batchIndex[a]);
+            MeasurementBatch y = batches.get(batchIndex[b]);
+            int c = Long.compare(x.getHealthId(), y.getHealthId());
+            if (c == 0) {
+                c = Integer.compare(x.getMetric(rowIndex[a]).getCode(), y.getMetric(rowIndex[b]).getCode());
+            }
+            return c != 0 ? c : Long.compare(x.getTimestamp(rowIndex[a]), y.getTimestamp(rowIndex[b]));
+        });
+        
+        boolean[] duplicate = new boolean[rows];
+        int duplicates = 0;
+        long chunkHorizon = windowStart(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(compactionDelayMinutes));
+        int start = 0;
+        while (start < rows) {
+            MeasurementBatch batch = batches.get(batchIndex[order[start]]);
+            MetricType metric = batch.getMetric(rowIndex[order[start]]);
+            int end = start + 1;
+            while (end < rows && batches.get(batchIndex[order[end]]).getHealthId() == batch.getHealthId()
+                    && batches.get(batchIndex[order[end]]).getMetric(rowIndex[order[end]]) == metric) {
+                end++;
+            }
+            long from = timestampAt(batches, batchIndex, rowIndex, order[start]);
+            long to = timestampAt(batches, batchIndex, rowIndex, order[end - 1]) + 1;
+            long[] stored = storedTimestamps(batch.getHealthId(), metric, from, to, chunkHorizon);
+            int e = 0;
+            long previous = Long.MIN_VALUE;
+            for (int k = start; k < end; k++) {
+                long timestamp = timestampAt(batches, batchIndex, rowIndex, order[k]);
+                while (e < stored.length && stored[e] < timestamp) {
+                    e++;
+                }
+                if ((k > start && timestamp == previous) || (e < stored.length && stored[e] == timestamp)) {
+                    duplicate[order[k]] = true;
+                    duplicates++;
+                }
+                previous = timestamp;
+            }
+            start = end;
+        }
+        if (duplicates == 0) {
+            return batches;
+        }
+        
+        List<MeasurementBatch> result = new ArrayList<>(batches.size());
+        n = 0;
+        for (MeasurementBatch batch : batches) {
+            MeasurementBatch kept = new MeasurementBatch(batch.getHealthId(), batch.size());
+            for (int i = 0; i < batch.size(); i++, n++) {
+                if (!duplicate[n]) {
+                    kept.add(batch.getMetric(i), batch.getTimestamp(i), batch.getValue(i));
+                }
+            }
+            result.add(kept.size() == batch.size() ? batch : kept);
+        }
+        return result;
+    }
+    
+    private static long timestampAt(List<MeasurementBatch> batches, int[] batchIndex, int[] rowIndex, int n) {
+        return batches.get(batchIndex[n]).getTimestamp(rowIndex[n]);
+    }
+    
+    // [from, to)内明细表与压缩块中已有的时间戳，升序
+    private long[] storedTimestamps(long healthId, MetricType metric, long from, long to, long chunkHorizon) {
+        // 与findRange相同，先读明细再读块，压缩在两次读取之间提交也不会漏掉
+        long[] head = measurementRepository.findTimestamps(healthId, metric, from, to);
+        // 块只覆盖压缩截止点之前的窗口（各实例compaction-delay相同），实时上报的读数不必查询块
+        if (windowStart(from) >= chunkHorizon) {
+            return head;
+        }
+        List<Chunk> chunks = chunkRepository.findOverlapping(healthId, metric, from, to, CHUNK_WINDOW_MS);
+        if (chunks.isEmpty()) {
+            return head;
+        }
+        int total = head.length;
+        for (Chunk chunk : chunks) {
+            total += chunk.getSampleCount();
+        }
+        long[] timestamps = Arrays.copyOf(head, total);
+        int n = head.length;
+        for (Chunk chunk : chunks) {
+            long[] chunkTimestamps = new long[chunk.getSampleCount()];
+            int count = GorillaCodec.decode(chunk.getData(), chunkTimestamps, new double[chunk.getSampleCount()], to);
+            System.arraycopy(chunkTimestamps, 0, timestamps, n, count);
+            n += count;
+        }
+        Arrays.sort(timestamps, 0, n);
+        return Arrays.copyOf(timestamps, n);
+    }
+    
+    /**
+     * 把早于(now - compaction-delay)所在窗口起点的明细行压缩进块，返回压缩的读数条数。
+     */
+    public long compact(long now) {
+        long cutoff = windowStart(now - TimeUnit.MINUTES.toMillis(compactionDelayMinutes));
+        long total = 0;
+        for (Series series : measurementRepository.findSeriesBefore(cutoff)) {
+            try {
+                Long compacted = transactionTemplate.execute(status ->
+                        compactSeries(series.getHealthId(), series.getMetric(), cutoff));
+                total += compacted != null ? compacted : 0;
+            } catch (RuntimeException e) {
+                // 已有块在合并期间被行锁保护；多实例同时为同一窗口插入新块会主键冲突，明细行保留到下一轮
+                logger.warn("Compaction of series {}/{} failed: {}", series.getHealthId(), series.getMetric(), e.getMessage());
+            }
+        }
+        if (total > 0) {
+            logger.info("Compacted {} measurements older than {}", total, cutoff);
+        }
+        return total;
+    }
+    
+    private long compactSeries(long healthId, MetricType metric, long cutoff) {
+        MeasurementBatch rows = measurementRepository.findBefore(healthId, metric, cutoff, compactionMaxRows);
+        int start = 0;
+        while (start < rows.size()) {
+            long window = windowStart(rows.getTimestamp(start));
+            int end = start;
+            while (end < rows.size() && rows.getTimestamp(end) < window + CHUNK_WINDOW_MS) {
+                end++;
+            }
+            writeChunk(healthId, metric, window, rows, start, end);
+            start = end;
+        }
+        measurementRepository.delete(rows);
+        compactedSamples.increment(rows.size());
+        return rows.size();
+    }
+    
+    // 明细行[start, end)属于同一窗口；窗口已有块时锁定后合并，重复时间点保留块中的读数
+    private void writeChunk(long healthId, MetricType metric, long window, MeasurementBatch rows, int start, int end) {
+        Chunk existing = chunkRepository.findForUpdate(healthId, metric, window);
+        int existingCount = existing != null ? existing.getSampleCount() : 0;
+        long[] timestamps = new long[existingCount + end - start];
+        double[] values = new double[timestamps.length];
+        int n = 0;
+        if (existing != null) {
+            long[] oldTimestamps = new long[existingCount];
+            double[] oldValues = new double[existingCount];
+            GorillaCodec.decode(existing.getData(), oldTimestamps, oldValues);
+            int i = 0;
+            int j = start;
+            while (i < existingCount || j < end) {
+                if (j >= end || (i < existingCount && oldTimestamps[i] <= rows.getTimestamp(j))) {
+                    if (j < end && oldTimestamps[i] == rows.getTimestamp(j)) {
+                        j++;
+                    }
+                    timestamps[n] = oldTimestamps[i];
+                    values[n++] = oldValues[i++];
+                } else {
+                    timestamps[n] = rows.getTimestamp(j);
+                    values[n++] = rows.getValue(j++);
+                }
+            }
+        } else {
+            for (int j = start; j < end; j++) {
+                timestamps[n] = rows.getTimestamp(j);
+                values[n++] = rows.getValue(j);
+            }
+        }
+        
+        byte[] data = GorillaCodec.encode(timestamps, values, 0, n);
+        Chunk chunk = new Chunk(window, timestamps[n - 1], n, data);
+        if (existing != null) {
+            chunkRepository.update(healthId, metric, chunk);
+        } else {
+            chunkRepository.insert(healthId, metric, chunk);
+        }
+        compactedBytes.increment(data.length - (existing != null ? existing.getData().length : 0));
+    }
+    
+    static long windowStart(long timestamp) {
+        return Math.floorDiv(timestamp, CHUNK_WINDOW_MS) * CHUNK_WINDOW_MS;
+    }
+    
+    private static int lowerBound(long[] timestamps, int n, long from) {
+        int i = Arrays.binarySearch(timestamps, 0, n, from);
+        return i >= 0 ? i : -i - 1;
+    }
+    
+    // 两个有序序列归并，重复时间点保留压缩块中的读数
+    private static MeasurementBatch merge(MeasurementBatch compacted, MeasurementBatch head, int limit) {
+        if (head.size() == 0) {
+            return compacted;
+        }
+        if (compacted.size() == 0) {
+            return head;
+        }
+        MeasurementBatch result = new MeasurementBatch(head.getHealthId(), Math.min(limit, compacted.size() + head.size()));
+        int i = 0;
+        int j = 0;
+        while (result.size() < limit && (i < compacted.size() || j < head.size())) {
+            if (j >= head.size() || (i < compacted.size() && compacted.getTimestamp(i) <= head.getTimestamp(j))) {
+                if (j < head.size() && compacted.getTimestamp(i) == head.getTimestamp(j)) {
+                    j++;
+                }
+                result.add(compacted.getMetric(i), compacted.getTimestamp(i), compacted.getValue(i));
+                i++;
+            } else {
+                result.add(head.getMetric(j), head.getTimestamp(j), head.getValue(j));
+                j++;
+            }
+        }
+        return result;
+    }
+}
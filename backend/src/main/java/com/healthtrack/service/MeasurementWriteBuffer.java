@@ -0,0 +1,240 @@
+package com.healthtrack.service;
+
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.repository.MeasurementRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 读数写入缓冲：请求线程只把批次放入队列，由后台写线程合并成大批量JDBC写入，并在同一事务中增量更新预聚合。
+ * 缓冲按读数条数限容，超出时offer返回false，由接口返回503；已接受的读数在进程正常退出前会全部写完。
+ * 写入遇到死锁等瞬时错误时退避重试，重试用尽或遇到其他错误才丢弃这一批。
+ * 每个写线程有自己的队列，同一healthId的批次总是进入同一个队列，因此按接受顺序写入并按该顺序发布写入事件。
+ */
+@Component
+public class MeasurementWriteBuffer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MeasurementWriteBuffer.class);
+    
+    @Autowired
+    private MeasurementRepository measurementRepository;
+    
+    @Autowired
+    private MeasurementStore measurementStore;
+    
+    @Autowired
+    private MeasurementRollupService rollupService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${measurements.ingest.buffer-capacity:500000}")
+    private long capacity;
+    
+    @Value("${measurements.ingest.write-batch-size:5000}")
+    private int writeBatchSize;
+    
+    @Value("${measurements.ingest.writer-threads:2}")
+    private int writerThreads;
+    
+    @Value("${measurements.ingest.linger-millis:20}")
+    private long lingerMillis;
+    
+    @Value("${measurements.ingest.write-attempts:5}")
+    private int writeAttempts;
+    
+    @Value("${measurements.ingest.retry-backoff-millis:50}")
+    private long retryBackoffMillis;
+    
+    private final List<BlockingQueue<MeasurementBatch>> queues = new ArrayList<>();
+    // 已接受但尚未写入（或写入失败前）的读数条数
+    private final AtomicLong pending = new AtomicLong();
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running = true;
+    
+    private Counter written;
+    private Counter rejected;
+    private Counter duplicates;
+    private Counter failed;
+    private Counter retried;
+    
+    @PostConstruct
+    public void init() {
+        written = meterRegistry.counter("healthtrack.measurements.written");
+        rejected = meterRegistry.counter("healthtrack.measurements.rejected", "reason", "buffer-full");
+        duplicates = meterRegistry.counter("healthtrack.measurements.rejected", "reason", "duplicate");
+        failed = meterRegistry.counter("healthtrack.measurements.failed");
+        retried = meterRegistry.counter("healthtrack.measurements.write.retries");
+        Gauge.builder("healthtrack.measurements.pending", pending, AtomicLong::get)
+                .register(meterRegistry);
+        
+        for (int i = 0; i < Math.max(1, writerThreads); i++) {
+            BlockingQueue<MeasurementBatch> queue = new LinkedBlockingQueue<>();
+            queues.add(queue);
+            Thread writer = new Thread(() -> runWriter(queue), "measurement-writer-" + (i + 1));
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        if (pending.get() > 0) {
+            logger.warn("Shut down with {} measurements not yet written", pending.get());
+        }
+    }
+    
+    /**
+     * 按条数预留缓冲容量，成功后入队；批次入队后不可再修改。
+     */
+    public boolean offer(MeasurementBatch batch) {
+        int n = batch.size();
+        long current;
+        do {
+            current = pending.get();
+            if (current + n > capacity) {
+                rejected.increment(n);
+                return false;
+            }
+        } while (!pending.compareAndSet(current, current + n));
+        queues.get(queueIndex(batch.getHealthId())).add(batch);
+        return true;
+    }
+    
+    public long getPending() {
+        return pending.get();
+    }
+    
+    // 死锁、锁等待超时、连接暂时取不到等瞬时错误按指数退避重做整个事务，其他错误不重试
+    private List<MeasurementBatch> writeWithRetries(List<MeasurementBatch> batches, int rows) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    // 重复读数在插入前剔除：MySQL合并批量后不返回逐行结果，无法据此区分重复行；
+                    // 已被压缩进块的读数也不在明细表中，INSERT IGNORE挡不住
+                    List<MeasurementBatch> newBatches = measurementStore.excludeStored(batches, rows);
+                    int newRows = count(newBatches);
+                    if (newRows > 0) {
+                        int[] inserted = measurementRepository.insert(newBatches, newRows);
+                        rollupService.apply(newBatches, inserted);
+                    }
+                    return newBatches;
+                });
+            } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+                if (attempt >= writeAttempts) {
+                    throw e;
+                }
+                retried.increment();
+                long backoffMillis = retryBackoffMillis << (attempt - 1);
+                logger.warn("Measurement write attempt {} failed, retrying in {}ms: {}", attempt, backoffMillis, e.getMessage());
+                // 加随机抖动，避免互相死锁的写线程同时重试再次冲突
+                Thread.sleep(backoffMillis + ThreadLocalRandom.current().nextLong(backoffMillis + 1));
+            }
+        }
+    }
+    
+    private static int count(List<MeasurementBatch> batches) {
+        int rows = 0;
+        for (MeasurementBatch batch : batches) {
+            rows += batch.size();
+        }
+        return rows;
+    }
+    
+    private int queueIndex(long healthId) {
+        int h = Long.hashCode(healthId);
+        h ^= (h >>> 16);
+        return Math.floorMod(h, queues.size());
+    }
+    
+    private void runWriter(BlockingQueue<MeasurementBatch> queue) {
+        List<MeasurementBatch> batches = new ArrayList<>();
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        while (running || !queue.isEmpty()) {
+            try {
+                MeasurementBatch first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batches.add(first);
+                int rows = first.size();
+                // 不足一个写批次时最多再等lingerMillis，用少量延迟换更大的批次
+                long deadline = System.nanoTime() + lingerNanos;
+                while (rows < writeBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    MeasurementBatch next = remaining > 0 && running
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batches.add(next);
+                    rows += next.size();
+                }
+                write(batches, rows);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batches.clear();
+            }
+        }
+    }
+    
+    private void write(List<MeasurementBatch> batches, int rows) {
+        List<MeasurementBatch> fresh;
+        try {
+            fresh = writeWithRetries(batches, rows);
+            int newRows = count(fresh);
+            written.increment(newRows);
+            duplicates.increment(rows - newRows);
+        } catch (RuntimeException e) {
+            failed.increment(rows);
+            logger.error("Dropped {} measurements after write failure: {}", rows, e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.increment(rows);
+            logger.error("Dropped {} measurements: interrupted while waiting to retry", rows);
+            return;
+        } finally {
+            pending.addAndGet(-rows);
+        }
+        try {
+            eventPublisher.publishEvent(new MeasurementsWrittenEvent(new ArrayList<>(fresh)));
+        } catch (RuntimeException e) {
+            // 读数已提交，推送与告警失败不影响写入
+            logger.warn("Measurement listeners failed: {}", e.getMessage());
+        }
+    }
+}
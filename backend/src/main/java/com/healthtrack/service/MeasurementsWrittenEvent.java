@@ -0,0 +1,21 @@
+package com.healthtrack.service;
+
+import com.healthtrack.dto.MeasurementBatch;
+
+import java.util.List;
+
+/**
+ * 一次批量写入提交后由MeasurementWriteBuffer在写线程上同步发布。监听方不得阻塞，也不得修改批次。
+ */
+public class MeasurementsWrittenEvent {
+    
+    private final List<MeasurementBatch> batches;
+    
+    public MeasurementsWrittenEvent(List<MeasurementBatch> batches) {
+        this.batches = batches;
+    }
+    
+    public List<MeasurementBatch> getBatches() {
+        return batches;
+    }
+}
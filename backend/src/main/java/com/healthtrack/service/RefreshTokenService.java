@@ -0,0 +1,143 @@
+package com.healthtrack.service;
+
+import com.healthtrack.entity.RefreshToken;
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.repository.RefreshTokenRepository;
+import com.healthtrack.security.InvalidRefreshTokenException;
+import com.healthtrack.security.JwtPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 轮换式刷新令牌：每次刷新作废旧令牌并签发同family的新令牌。
+ * 刷新只需按摘要走一次唯一索引查询，不做BCrypt校验，也不查询账号表。
+ */
+@Service
+public class RefreshTokenService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    
+    private static final int TOKEN_BYTES = 32;
+    private static final long PURGE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+    
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    
+    @Value("${jwt.refresh.expiration:2592000000}")
+    private long refreshExpirationMs;
+    
+    private final SecureRandom random = new SecureRandom();
+    private volatile long nextPurgeAt;
+    
+    /**
+     * 登录或注册成功后为账号开启新的令牌family，返回令牌明文（只出现在响应中）。
+     */
+    @Transactional
+    public String issue(JwtPrincipal principal) {
+        purgeExpired();
+        return create(UUID.randomUUID().toString(), principal.getId(), principal.getUsername(), principal.getUserType());
+    }
+    
+    /**
+     * 用旧令牌换取新令牌。已轮换的令牌再次出现说明令牌可能被盗用，作废整个family。
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Unknown refresh token"));
+        if (current.isUsed() || refreshTokenRepository.markUsed(current.getId()) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId());
+            logger.warn("Refresh token reuse detected for {} {}, revoked {} tokens in family {}",
+                    current.getUserType(), current.getUsername(), revoked, current.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        if (current.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+        
+        String next = create(current.getFamilyId(), current.getAccountId(), current.getUsername(),
+                current.getUserType());
+        // 账号类型决定唯一的角色，与User/Doctor.getAuthorities一致
+        JwtPrincipal principal = new JwtPrincipal(current.getAccountId(), current.getUsername(), current.getUserType(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + current.getUserType().name())));
+        return new Rotation(principal, next);
+    }
+    
+    /**
+     * 注销时作废令牌所在的整个family；令牌未知时忽略。
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+    
+    private String create(String familyId, Long accountId, String username, UserRole userType) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(refreshExpirationMs));
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), familyId, accountId, username, userType, expiresAt));
+        return rawToken;
+    }
+    
+    // 限制清理频率，过期行在两次清理之间仍会因expires_at检查而失效
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (now < nextPurgeAt) {
+            return;
+        }
+        nextPurgeAt = now + PURGE_INTERVAL_MS;
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.debug("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+    
+    // 令牌本身有256位熵，单次SHA-256即可，无需慢哈希
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    public static final class Rotation {
+        private final JwtPrincipal principal;
+        private final String refreshToken;
+        
+        private Rotation(JwtPrincipal principal, String refreshToken) {
+            this.principal = principal;
+            this.refreshToken = refreshToken;
+        }
+        
+        public JwtPrincipal getPrincipal() {
+            return principal;
+        }
+        
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+    }
+}
@@ -2,14 +2,16 @@ package com.healthtrack.service;
 
 import com.healthtrack.entity.Doctor;
 import com.healthtrack.entity.User;
+import com.healthtrack.entity.UserRole;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class UnifiedUserDetailsService implements UserDetailsService {
+public class UnifiedUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserService userService;
@@ -17,22 +19,8 @@ public class UnifiedUserDetailsService implements UserDetailsService {
     @Autowired
     private DoctorService doctorService;
     
-    // 存储当前登录请求的用户类型
-    private static final ThreadLocal<String> currentUserType = new ThreadLocal<>();
-    
-    public static void setCurrentUserType(String userType) {
-        currentUserType.set(userType);
-    }
-    
-    public static void clearCurrentUserType() {
-        currentUserType.remove();
-    }
-    
-    @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        String userType = currentUserType.get();
-        
-        if ("DOCTOR".equals(userType)) {
+    public UserDetails loadUserByUsername(String username, UserRole userType) throws UsernameNotFoundException {
+        if (userType == UserRole.DOCTOR) {
             // 如果指定了医生类型，只查找医生
             try {
                 return doctorService.loadUserByUsername(username);
@@ -48,4 +36,22 @@ public class UnifiedUserDetailsService implements UserDetailsService {
             }
         }
     }
+    
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return loadUserByUsername(username, UserRole.USER);
+    }
+    
+    /**
+     * 登录时按当前编码器重新哈希后写回password列。
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (user instanceof Doctor) {
+            return doctorService.updatePassword(((Doctor) user).getId(), newPassword).orElse((Doctor) user);
+        } else if (user instanceof User) {
+            return userService.updatePassword(((User) user).getId(), newPassword).orElse((User) user);
+        }
+        throw new IllegalArgumentException("Unknown user type: " + user.getClass().getName());
+    }
 }
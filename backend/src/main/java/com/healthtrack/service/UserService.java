@@ -8,6 +8,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -20,9 +21,14 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private AccountAvailabilityIndex availabilityIndex;
+    
     public User createUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        availabilityIndex.recordUser(saved);
+        return saved;
     }
     
     public Optional<User> findByUsername(String username) {
@@ -41,6 +47,14 @@ public class UserService implements UserDetailsService {
         return userRepository.existsByPhone(phone);
     }
     
+    // 已编码的密码，直接写入；实体经二级缓存加载，提交时同步更新缓存
+    @Transactional
+    public Optional<User> updatePassword(Long id, String encodedPassword) {
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(account -> account.setPassword(encodedPassword));
+        return user;
+    }
+    
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
@@ -0,0 +1,226 @@
+package com.healthtrack.util;
+
+import java.util.Arrays;
+
+/**
+ * Gorilla时间序列压缩（Facebook, VLDB 2015）：时间戳按二阶差分（delta-of-delta）变长编码，
+ * 数值与前一个值异或后只写出有效位。固定频率采样的时间戳每条只占1位，缓慢变化的读数通常只占十几位。
+ * 输入必须按时间戳严格递增。
+ */
+public final class GorillaCodec {
+    
+    private static final int VERSION = 1;
+    
+    private GorillaCodec() {
+    }
+    
+    public static byte[] encode(long[] timestamps, double[] values, int offset, int length) {
+        BitWriter out = new BitWriter(16 + length * 3);
+        out.writeBits(VERSION, 8);
+        out.writeBits(length, 32);
+        if (length == 0) {
+            return out.toByteArray();
+        }
+        
+        long previousTimestamp = timestamps[offset];
+        long previousBits = Double.doubleToRawLongBits(values[offset]);
+        out.writeBits(previousTimestamp, 64);
+        out.writeBits(previousBits, 64);
+        long previousDelta = 0;
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        
+        for (int i = offset + 1; i < offset + length; i++) {
+            long delta = timestamps[i] - previousTimestamp;
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                out.writeBits(0, 1);
+            } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+                out.writeBits(0b10, 2);
+                out.writeBits(deltaOfDelta + 63, 7);
+            } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+                out.writeBits(0b110, 3);
+                out.writeBits(deltaOfDelta + 255, 9);
+            } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(deltaOfDelta + 2047, 12);
+            } else if (deltaOfDelta >= Integer.MIN_VALUE && deltaOfDelta <= Integer.MAX_VALUE) {
+                out.writeBits(0b11110, 5);
+                out.writeBits(deltaOfDelta, 32);
+            } else {
+                out.writeBits(0b11111, 5);
+                out.writeBits(deltaOfDelta, 64);
+            }
+            previousDelta = delta;
+            previousTimestamp = timestamps[i];
+            
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previousBits;
+            if (xor == 0) {
+                out.writeBits(0, 1);
+            } else {
+                // 前导零用5位保存，超过31按31处理
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                    // 有效位落在上一个窗口内，复用窗口
+                    out.writeBits(0b10, 2);
+                    out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int significant = 64 - leading - trailing;
+                    out.writeBits(0b11, 2);
+                    out.writeBits(leading, 5);
+                    out.writeBits(significant - 1, 6);
+                    out.writeBits(xor >>> trailing, significant);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previousBits = bits;
+        }
+        return out.toByteArray();
+    }
+    
+    public static int count(byte[] chunk) {
+        return new BitReader(chunk).skip(8).readInt();
+    }
+    
+    /**
+     * 解码全部读数到timestamps与values（长度至少为count），返回条数。
+     */
+    public static int decode(byte[] chunk, long[] timestamps, double[] values) {
+        return decode(chunk, timestamps, values, Long.MAX_VALUE);
+    }
+    
+    /**
+     * 解码早于until的读数，遇到第一个不早于until的读数即停止，返回解出的条数。
+     */
+    public static int decode(byte[] chunk, long[] timestamps, double[] values, long until) {
+        BitReader in = new BitReader(chunk);
+        int version = (int) in.readBits(8);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported chunk version: " + version);
+        }
+        int count = in.readInt();
+        if (count == 0) {
+            return 0;
+        }
+        
+        long timestamp = in.readBits(64);
+        long bits = in.readBits(64);
+        if (timestamp >= until) {
+            return 0;
+        }
+        timestamps[0] = timestamp;
+        values[0] = Double.longBitsToDouble(bits);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        
+        for (int i = 1; i < count; i++) {
+            long deltaOfDelta;
+            if (in.readBit() == 0) {
+                deltaOfDelta = 0;
+            } else if (in.readBit() == 0) {
+                deltaOfDelta = in.readBits(7) - 63;
+            } else if (in.readBit() == 0) {
+                deltaOfDelta = in.readBits(9) - 255;
+            } else if (in.readBit() == 0) {
+                deltaOfDelta = in.readBits(12) - 2047;
+            } else if (in.readBit() == 0) {
+                deltaOfDelta = (int) in.readBits(32);
+            } else {
+                deltaOfDelta = in.readBits(64);
+            }
+            delta += deltaOfDelta;
+            timestamp += delta;
+            if (timestamp >= until) {
+                return i;
+            }
+            timestamps[i] = timestamp;
+            
+            if (in.readBit() == 1) {
+                if (in.readBit() == 1) {
+                    leading = (int) in.readBits(5);
+                    int significant = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                bits ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(bits);
+        }
+        return count;
+    }
+    
+    private static final class BitWriter {
+        private byte[] buffer;
+        private long position;
+        
+        BitWriter(int initialBytes) {
+            buffer = new byte[Math.max(16, initialBytes)];
+        }
+        
+        // 写出value的低n位（n为0到64），高位在前
+        void writeBits(long value, int n) {
+            ensureCapacity(n);
+            while (n > 0) {
+                int index = (int) (position >>> 3);
+                int free = 8 - (int) (position & 7);
+                int take = Math.min(free, n);
+                int chunk = (int) ((value >>> (n - take)) & ((1L << take) - 1));
+                buffer[index] |= (byte) (chunk << (free - take));
+                position += take;
+                n -= take;
+            }
+        }
+        
+        private void ensureCapacity(int bits) {
+            long required = (position + bits + 7) >>> 3;
+            if (required > buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.max(required, buffer.length * 2L));
+            }
+        }
+        
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, (int) ((position + 7) >>> 3));
+        }
+    }
+    
+    private static final class BitReader {
+        private final byte[] buffer;
+        private long position;
+        
+        BitReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+        
+        BitReader skip(int bits) {
+            position += bits;
+            return this;
+        }
+        
+        int readBit() {
+            int bit = (buffer[(int) (position >>> 3)] >>> (7 - (int) (position & 7))) & 1;
+            position++;
+            return bit;
+        }
+        
+        int readInt() {
+            return (int) readBits(32);
+        }
+        
+        long readBits(int n) {
+            long value = 0;
+            while (n > 0) {
+                int index = (int) (position >>> 3);
+                int available = 8 - (int) (position & 7);
+                int take = Math.min(available, n);
+                int chunk = (buffer[index] >>> (available - take)) & ((1 << take) - 1);
+                value = (value << take) | chunk;
+                position += take;
+                n -= take;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.healthtrack.util;
+
+/**
+ * 开放寻址的long集合，每个元素只占一个数组槽位（8字节），没有装箱与链表节点开销。
+ * 非线程安全，并发访问由调用方加锁；0作为空槽标记，存入0时映射为常量ZERO_KEY。
+ */
+public class LongHashSet {
+    
+    private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+    private static final float LOAD_FACTOR = 0.5f;
+    
+    private long[] slots;
+    private int size;
+    
+    public LongHashSet() {
+        this(16);
+    }
+    
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.slots = new long[capacity];
+    }
+    
+    public boolean add(long value) {
+        long key = value != 0 ? value : ZERO_KEY;
+        if (size + 1 > slots.length * LOAD_FACTOR) {
+            resize(slots.length << 1);
+        }
+        if (insert(slots, key)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+    
+    public boolean contains(long value) {
+        long key = value != 0 ? value : ZERO_KEY;
+        long[] table = slots;
+        int mask = table.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            long slot = table[i];
+            if (slot == key) {
+                return true;
+            }
+            if (slot == 0) {
+                return false;
+            }
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public long[] toArray() {
+        long[] values = new long[size];
+        int n = 0;
+        for (long slot : slots) {
+            if (slot != 0) {
+                values[n++] = slot != ZERO_KEY ? slot : 0;
+            }
+        }
+        return values;
+    }
+    
+    public long sizeInBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+    
+    private void resize(int capacity) {
+        long[] table = new long[capacity];
+        for (long slot : slots) {
+            if (slot != 0) {
+                insert(table, slot);
+            }
+        }
+        slots = table;
+    }
+    
+    private static boolean insert(long[] table, long key) {
+        int mask = table.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            long slot = table[i];
+            if (slot == key) {
+                return false;
+            }
+            if (slot == 0) {
+                table[i] = key;
+                return true;
+            }
+        }
+    }
+    
+    private static int index(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,40 @@
+package com.healthtrack.util;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限频的WARN日志：每个间隔内最多输出一条，其余降为DEBUG，并在下一条WARN中附带被抑制的条数。
+ * 用于客户端可以随意触发的日志（无效令牌、未认证访问），避免攻击或客户端故障时日志I/O拖慢请求。
+ */
+public class SampledLogger {
+    
+    private final Logger logger;
+    private final long intervalNanos;
+    private final AtomicLong nextWarnAt;
+    private final AtomicLong suppressed = new AtomicLong();
+    
+    public SampledLogger(Logger logger, long interval, TimeUnit unit) {
+        this.logger = logger;
+        this.intervalNanos = unit.toNanos(interval);
+        this.nextWarnAt = new AtomicLong(System.nanoTime());
+    }
+    
+    public void warn(String format, Object arg) {
+        long now = System.nanoTime();
+        long next = nextWarnAt.get();
+        if (now - next < 0 || !nextWarnAt.compareAndSet(next, now + intervalNanos)) {
+            suppressed.incrementAndGet();
+            logger.debug(format, arg);
+            return;
+        }
+        long skipped = suppressed.getAndSet(0);
+        if (skipped == 0) {
+            logger.warn(format, arg);
+        } else {
+            logger.warn(format + " ({} similar messages suppressed)", arg, skipped);
+        }
+    }
+}
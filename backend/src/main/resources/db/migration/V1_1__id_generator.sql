@@ -0,0 +1,5 @@
+-- 主键号段表，与实体上的@TableGenerator对应，每次预取50个
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT
+);
@@ -0,0 +1,4 @@
+-- 医生目录键集分页，均以id结尾以便按id顺序扫描
+CREATE INDEX idx_provider_role_verified_id ON system_provider (role, is_verified, id);
+CREATE INDEX idx_provider_role_id ON system_provider (role, id);
+CREATE INDEX idx_provider_verified_id ON system_provider (is_verified, id);
@@ -0,0 +1,34 @@
+-- 基线表结构：只包含迁移前 sql/init.sql 中的两张表及其唯一键；已有数据库由 baseline-on-migrate 直接记为V1，不会执行本脚本
+-- 之后新增的表与索引放在V1之后的版本中，这样基线库与新库都会执行到
+
+-- 用户表：username/health_id/phone唯一索引用于登录与注册查重
+CREATE TABLE system_user (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(512) NOT NULL,
+    health_id BIGINT,
+    name VARCHAR(128),
+    phone VARCHAR(20),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT uk_user_username UNIQUE (username),
+    CONSTRAINT uk_user_health_id UNIQUE (health_id),
+    CONSTRAINT uk_user_phone UNIQUE (phone)
+);
+
+-- 医生表
+CREATE TABLE system_provider (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(512) NOT NULL,
+    license_id BIGINT,
+    name VARCHAR(128),
+    phone VARCHAR(20),
+    role TINYINT,
+    is_verified BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT uk_provider_username UNIQUE (username),
+    CONSTRAINT uk_provider_license_id UNIQUE (license_id),
+    CONSTRAINT uk_provider_phone UNIQUE (phone)
+);
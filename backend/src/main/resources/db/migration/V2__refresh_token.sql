@@ -0,0 +1,16 @@
+-- 刷新令牌表：只保存令牌的SHA-256摘要（64位十六进制），刷新时按token_hash唯一索引查找
+CREATE TABLE refresh_token (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL,
+    family_id VARCHAR(36) NOT NULL,
+    account_id BIGINT NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    user_type VARCHAR(16) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    used BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_refresh_token_hash UNIQUE (token_hash)
+);
+
+CREATE INDEX idx_refresh_token_family ON refresh_token (family_id);
+CREATE INDEX idx_refresh_token_expires_at ON refresh_token (expires_at);
@@ -0,0 +1,9 @@
+-- 体征读数明细：按(health_id, metric, recorded_at)聚簇，单个用户单个指标的时间范围查询只扫描连续的主键区间
+-- recorded_at为毫秒时间戳；metric为MetricType.code
+CREATE TABLE measurement (
+    health_id BIGINT NOT NULL,
+    metric SMALLINT NOT NULL,
+    recorded_at BIGINT NOT NULL,
+    sample_value DOUBLE NOT NULL,
+    PRIMARY KEY (health_id, metric, recorded_at)
+);
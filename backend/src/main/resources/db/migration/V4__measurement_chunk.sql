@@ -0,0 +1,15 @@
+-- 压缩后的读数块：每个用户、指标按2小时窗口一块，data为Gorilla编码（见GorillaCodec）
+-- measurement表只保留尚未压缩的近期读数，由MeasurementStore定期把完整窗口压缩进本表
+CREATE TABLE measurement_chunk (
+    health_id BIGINT NOT NULL,
+    metric SMALLINT NOT NULL,
+    window_start BIGINT NOT NULL,
+    last_at BIGINT NOT NULL,
+    sample_count INT NOT NULL,
+    data MEDIUMBLOB NOT NULL,
+    PRIMARY KEY (health_id, metric, window_start)
+);
+
+-- 压缩线程按recorded_at < 截止点查找待压缩的(health_id, metric)，主键以health_id开头无法用于该条件；
+-- 覆盖索引只扫描早于截止点的行，即本轮要压缩的行，而不是整张明细表
+CREATE INDEX idx_measurement_recorded_at ON measurement (recorded_at, health_id, metric);
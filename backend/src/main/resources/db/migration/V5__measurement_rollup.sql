@@ -0,0 +1,15 @@
+-- 读数预聚合：resolution 1=分钟 2=小时 3=天，bucket_start为按UTC对齐的桶起点（毫秒）
+-- 由MeasurementWriteBuffer在写入明细的同一事务中增量更新
+CREATE TABLE measurement_rollup (
+    health_id BIGINT NOT NULL,
+    metric SMALLINT NOT NULL,
+    resolution TINYINT NOT NULL,
+    bucket_start BIGINT NOT NULL,
+    min_value DOUBLE NOT NULL,
+    max_value DOUBLE NOT NULL,
+    sum_value DOUBLE NOT NULL,
+    sample_count BIGINT NOT NULL,
+    last_at BIGINT NOT NULL,
+    last_value DOUBLE NOT NULL,
+    PRIMARY KEY (health_id, metric, resolution, bucket_start)
+);
@@ -0,0 +1,4 @@
+-- 患者的主治医生，实时读数与告警按此推送给医生；可为空
+ALTER TABLE system_user ADD COLUMN doctor_id BIGINT;
+ALTER TABLE system_user ADD CONSTRAINT fk_user_doctor FOREIGN KEY (doctor_id) REFERENCES system_provider (id);
+CREATE INDEX idx_user_doctor_id ON system_user (doctor_id);
@@ -0,0 +1,16 @@
+-- 告警规则触发记录，由AlertEngine在读数写入后追加；doctor_id为触发时患者的主治医生，没有则为NULL
+-- triggered_at为触发读数的毫秒时间戳；metric为MetricType.code
+CREATE TABLE patient_alert (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    health_id BIGINT NOT NULL,
+    doctor_id BIGINT,
+    rule_name VARCHAR(64) NOT NULL,
+    rule_expression VARCHAR(255) NOT NULL,
+    metric SMALLINT NOT NULL,
+    observed_value DOUBLE NOT NULL,
+    triggered_at BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_alert_doctor ON patient_alert (doctor_id, id);
+CREATE INDEX idx_alert_health ON patient_alert (health_id, id);
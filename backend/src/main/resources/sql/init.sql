@@ -1,34 +1,4 @@
 -- HealthTrack数据库初始化脚本
+-- 表结构由Flyway迁移脚本维护（src/main/resources/db/migration），应用启动时自动执行
 -- 创建数据库
 CREATE DATABASE IF NOT EXISTS healthtrack CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
-
--- 使用数据库
-USE healthtrack;
-
--- 创建用户表
-CREATE TABLE IF NOT EXISTS system_user (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    username VARCHAR(255) NOT NULL UNIQUE,
-    password VARCHAR(512) NOT NULL,
-    health_id BIGINT UNIQUE,
-    name VARCHAR(128),
-    phone VARCHAR(20) UNIQUE,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
-);
-
--- 创建医生表
-CREATE TABLE IF NOT EXISTS system_provider (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    username VARCHAR(255) NOT NULL UNIQUE,
-    password VARCHAR(512) NOT NULL,
-    license_id BIGINT UNIQUE,
-    name VARCHAR(128),
-    phone VARCHAR(20) UNIQUE,
-    role TINYINT,
-    is_verified BOOLEAN DEFAULT FALSE,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
-) ;
-
-
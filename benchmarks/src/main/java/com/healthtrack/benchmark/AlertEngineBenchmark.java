@@ -0,0 +1,139 @@
+package com.healthtrack.benchmark;
+
+import com.healthtrack.alert.AlertEngine;
+import com.healthtrack.alert.AlertRule;
+import com.healthtrack.alert.AlertRuleParser;
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.entity.MetricType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 告警规则的单条读数评估开销（纳秒/条）。
+ * threshold/average/slope：单个患者单条规则的状态，读数间隔1秒；
+ * evaluateBatch：AlertEngine使用application.yml中的默认规则，10000个患者轮流上报，
+ * 每批为1分钟的1Hz心率加一条收缩压与一条血氧，包含按患者查找状态与加锁的开销，不包含告警的保存与推送。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlertEngineBenchmark {
+    
+    private static final int PATIENTS = 10000;
+    private static final int HEART_RATE_SAMPLES = 60;
+    private static final int BATCH_SAMPLES = HEART_RATE_SAMPLES + 2;
+    
+    /**
+     * 单条规则的状态，每次调用送入下一秒的读数。
+     */
+    @State(Scope.Thread)
+    public static class RuleState {
+        final double[] values = new double[4096];
+        AlertRule.State threshold;
+        AlertRule.State average;
+        AlertRule.State slope;
+        long timestamp = 1700000000000L;
+        int next;
+        
+        @Setup
+        public void setUp() {
+            List<AlertRule> rules = AlertRuleParser.parse("threshold: HEART_RATE > 120 for 10m\n"
+                    + "average: avg(HEART_RATE, 1h) > 100\n"
+                    + "slope: slope(HEART_RATE, 3d) > 3\n");
+            threshold = rules.get(0).newState();
+            average = rules.get(1).newState();
+            slope = rules.get(2).newState();
+            Random random = new Random(42);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = 60 + random.nextInt(40);
+            }
+        }
+        
+        double nextValue() {
+            timestamp += 1000;
+            return values[next++ & (values.length - 1)];
+        }
+    }
+    
+    @Benchmark
+    public double threshold(RuleState state) {
+        return state.threshold.offer(state.timestamp, state.nextValue());
+    }
+    
+    @Benchmark
+    public double average(RuleState state) {
+        return state.average.offer(state.timestamp, state.nextValue());
+    }
+    
+    @Benchmark
+    public double slope(RuleState state) {
+        return state.slope.offer(state.timestamp, state.nextValue());
+    }
+    
+    /**
+     * 使用Spring上下文中的AlertEngine；每次调用前构造下一个患者的下一分钟读数。
+     */
+    @State(Scope.Thread)
+    public static class EngineState {
+        ConfigurableApplicationContext context;
+        AlertEngine engine;
+        final long[] clocks = new long[PATIENTS];
+        final Random random = new Random(7);
+        int nextPatient;
+        MeasurementBatch batch;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BenchmarkFixtures.startH2Context("alerts");
+            engine = context.getBean(AlertEngine.class);
+            long start = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30);
+            for (int i = 0; i < PATIENTS; i++) {
+                clocks[i] = start;
+            }
+        }
+        
+        @Setup(Level.Invocation)
+        public void nextBatch() {
+            int patient = nextPatient;
+            nextPatient = (nextPatient + 1) % PATIENTS;
+            long timestamp = clocks[patient];
+            batch = new MeasurementBatch(patient + 1, BATCH_SAMPLES);
+            for (int i = 0; i < HEART_RATE_SAMPLES; i++) {
+                batch.add(MetricType.HEART_RATE, timestamp + i * 1000L, 60 + random.nextInt(40));
+            }
+            batch.add(MetricType.SYSTOLIC_PRESSURE, timestamp, 110 + random.nextInt(20));
+            batch.add(MetricType.OXYGEN_SATURATION, timestamp, 95 + random.nextInt(5));
+            clocks[patient] = timestamp + HEART_RATE_SAMPLES * 1000L;
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SAMPLES)
+    public int evaluateBatch(EngineState state) {
+        return state.engine.evaluate(state.batch).size();
+    }
+}
@@ -0,0 +1,79 @@
+package com.healthtrack.benchmark;
+
+import com.healthtrack.security.AuthTokenFilter;
+import com.healthtrack.security.JwtUtils;
+import com.healthtrack.security.TokenRevocationStore;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次请求经过AuthTokenFilter.doFilterInternal的完整开销（无状态主体模式，不访问数据库）。
+ * revokedTokens为吊销集合中预先放入的其他令牌数，与被测令牌落在同一时间桶。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthTokenFilterBenchmark {
+    
+    @Param({"10000", "0"})
+    private int cacheEntries;
+    
+    @Param({"0", "100000"})
+    private int revokedTokens;
+    
+    private AuthTokenFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+    
+    @Setup
+    public void setUp(Blackhole blackhole) throws Exception {
+        JwtUtils jwtUtils = BenchmarkFixtures.newJwtUtils(cacheEntries);
+        String token = jwtUtils.generateJwtToken(BenchmarkFixtures.userPrincipal());
+        
+        TokenRevocationStore revocationStore = BenchmarkFixtures.newRevocationStore();
+        Date expiration = jwtUtils.getClaimsFromJwtToken(token).getExpiration();
+        for (int i = 0; i < revokedTokens; i++) {
+            revocationStore.revoke(Jwts.claims().setId(UUID.randomUUID().toString()).setExpiration(expiration));
+        }
+        
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "revocationStore", revocationStore);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+        
+        request = new MockHttpServletRequest("GET", "/api/user/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+    }
+    
+    @Benchmark
+    public void doFilter() throws Exception {
+        filter.doFilter(request, response, chain);
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,83 @@
+package com.healthtrack.benchmark;
+
+import com.healthtrack.HealthTrackApplication;
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.security.JwtPrincipal;
+import com.healthtrack.security.JwtUtils;
+import com.healthtrack.security.TokenRevocationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * 基准测试共用的构造方法：独立的JwtUtils实例与基于内存H2的应用上下文。
+ */
+final class BenchmarkFixtures {
+    
+    static final String JWT_SECRET = "mySuperSecureKey_ThisKeyMustBeAtLeast64BytesLong_UseItForHS512Algorithm!!!";
+    static final int JWT_EXPIRATION_MS = 86400000;
+    
+    private BenchmarkFixtures() {
+    }
+    
+    static JwtUtils newJwtUtils(int maxCachedTokens) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", JWT_EXPIRATION_MS);
+        ReflectionTestUtils.setField(jwtUtils, "maxCachedTokens", maxCachedTokens);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+    
+    static TokenRevocationStore newRevocationStore() throws Exception {
+        TokenRevocationStore store = new TokenRevocationStore();
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "bucketMinutes", 60);
+        ReflectionTestUtils.setField(store, "file", "");
+        store.init();
+        return store;
+    }
+    
+    static JwtPrincipal userPrincipal() {
+        return new JwtPrincipal(42L, "benchmark-user", UserRole.USER,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+    
+    /**
+     * @param extraArgs 追加的配置项，形如"--key=value"
+     */
+    static ConfigurableApplicationContext startH2Context(String databaseName, String... extraArgs) {
+        // 以命令行参数形式传入，优先级高于application.yml中的MySQL配置
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:" + databaseName
+                        + ";MODE=MySQL;NON_KEYWORDS=SYSTEM_USER,VALUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                // 表结构由Flyway迁移脚本创建，measurement等表没有对应的实体
+                "--spring.jpa.hibernate.ddl-auto=validate",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.main.banner-mode=off",
+                // 运维账号必须显式配置密码，基准测试不使用运维接口，随机生成即可
+                "--spring.security.user.password=benchmark-" + UUID.randomUUID(),
+                "--jwt.revocation.file=",
+                "--logging.level.root=WARN",
+                "--logging.level.com.healthtrack=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"};
+        String[] allArgs = Arrays.copyOf(args, args.length + extraArgs.length);
+        System.arraycopy(extraArgs, 0, allArgs, args.length, extraArgs.length);
+        return new SpringApplicationBuilder(HealthTrackApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(allArgs);
+    }
+}
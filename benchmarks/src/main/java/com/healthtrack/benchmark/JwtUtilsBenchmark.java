@@ -0,0 +1,58 @@
+package com.healthtrack.benchmark;
+
+import com.healthtrack.security.JwtPrincipal;
+import com.healthtrack.security.JwtUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtils签发与验签开销。cacheEntries=0时关闭已验签令牌缓存，每次都完整解析并校验HMAC。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilsBenchmark {
+    
+    @Param({"10000", "0"})
+    private int cacheEntries;
+    
+    private JwtUtils jwtUtils;
+    private JwtPrincipal principal;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        jwtUtils = BenchmarkFixtures.newJwtUtils(cacheEntries);
+        principal = BenchmarkFixtures.userPrincipal();
+        token = jwtUtils.generateJwtToken(principal);
+    }
+    
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtils.generateJwtToken(principal);
+    }
+    
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+    
+    @Benchmark
+    public String getUserNameFromJwtToken() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+}
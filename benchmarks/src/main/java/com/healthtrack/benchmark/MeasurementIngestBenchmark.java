@@ -0,0 +1,86 @@
+package com.healthtrack.benchmark;
+
+import com.healthtrack.service.MeasurementBufferFullException;
+import com.healthtrack.service.MeasurementIngestService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 读数上报的持续吞吐：流式解析JSON、逐条校验、进入写入缓冲并由写线程批量写入内存H2。
+ * 预热阶段即会填满缓冲，此后请求线程在503时退避重试，测得的速率受落库速度约束，而不只是入队速度。
+ * 每批读数条数 = ops/s × samples。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MeasurementIngestBenchmark {
+    
+    @Param({"1000", "5000"})
+    private int samples;
+    
+    private ConfigurableApplicationContext context;
+    private MeasurementIngestService ingestService;
+    private byte[] body;
+    // 每次调用换一个healthId，避免重复主键被INSERT IGNORE跳过而虚高
+    private final AtomicLong nextHealthId = new AtomicLong();
+    
+    @Setup
+    public void setUp() {
+        context = BenchmarkFixtures.startH2Context("ingest");
+        ingestService = context.getBean(MeasurementIngestService.class);
+        
+        long start = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+        StringBuilder json = new StringBuilder(samples * 64).append("{\"samples\":[");
+        for (int i = 0; i < samples; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            // 心率与步数交替，时间间隔1秒
+            boolean heartRate = (i & 1) == 0;
+            json.append("{\"metric\":\"").append(heartRate ? "HEART_RATE" : "STEPS")
+                    .append("\",\"timestamp\":").append(start + i * 1000L)
+                    .append(",\"value\":").append(heartRate ? 60 + i % 40 : i % 200).append('}');
+        }
+        body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public int ingest() throws IOException {
+        long healthId = nextHealthId.incrementAndGet();
+        while (true) {
+            try {
+                return ingestService.ingest(healthId, new ByteArrayInputStream(body)).getAccepted();
+            } catch (MeasurementBufferFullException e) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+}
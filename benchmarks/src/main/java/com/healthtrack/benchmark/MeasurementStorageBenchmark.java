@@ -0,0 +1,149 @@
+package com.healthtrack.benchmark;
+
+import com.healthtrack.dto.MeasurementBatch;
+import com.healthtrack.entity.MetricType;
+import com.healthtrack.repository.MeasurementRepository;
+import com.healthtrack.service.MeasurementStore;
+import com.healthtrack.util.GorillaCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 明细行与压缩块的范围扫描对比：同一份1Hz心率数据（1天，86400条）分别以明细行（healthId=1）
+ * 和压缩块（healthId=2）存放在内存H2中，按rangeHours读取。每次读取的条数 = rangeHours × 3600。
+ * 启动时打印压缩块的平均每条字节数。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeasurementStorageBenchmark {
+    
+    private static final long ROW_SERIES = 1;
+    private static final long CHUNK_SERIES = 2;
+    private static final int SAMPLES = 86400;
+    
+    @Param({"1", "24"})
+    private int rangeHours;
+    
+    private ConfigurableApplicationContext context;
+    private MeasurementRepository measurementRepository;
+    private MeasurementStore measurementStore;
+    private long from;
+    private long to;
+    
+    @Setup
+    public void setUp() {
+        // 关闭后台压缩，由setUp显式压缩healthId=2
+        context = BenchmarkFixtures.startH2Context("storage", "--measurements.storage.compaction-enabled=false");
+        measurementRepository = context.getBean(MeasurementRepository.class);
+        measurementStore = context.getBean(MeasurementStore.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        
+        long start = MeasurementStore.CHUNK_WINDOW_MS * (System.currentTimeMillis() / MeasurementStore.CHUNK_WINDOW_MS)
+                - TimeUnit.DAYS.toMillis(2);
+        // 先写入并压缩healthId=2，再写入healthId=1，保证后者只以明细行存在
+        for (long healthId : new long[]{CHUNK_SERIES, ROW_SERIES}) {
+            MeasurementBatch batch = heartRate(healthId, start, SAMPLES);
+            transactionTemplate.executeWithoutResult(status ->
+                    measurementRepository.insert(Collections.singletonList(batch), batch.size()));
+            if (healthId == CHUNK_SERIES) {
+                measurementStore.compact(start + TimeUnit.DAYS.toMillis(2));
+            }
+        }
+        
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurement WHERE health_id = ?", Long.class, CHUNK_SERIES);
+        Long samples = jdbcTemplate.queryForObject("SELECT SUM(sample_count) FROM measurement_chunk WHERE health_id = ?",
+                Long.class, CHUNK_SERIES);
+        Long bytes = jdbcTemplate.queryForObject("SELECT SUM(OCTET_LENGTH(data)) FROM measurement_chunk WHERE health_id = ?",
+                Long.class, CHUNK_SERIES);
+        System.out.printf("%nchunks: %d samples, %d bytes, %.2f bytes/sample; %d rows left uncompacted%n",
+                samples, bytes, (double) bytes / samples, rows);
+        
+        from = start;
+        to = start + TimeUnit.HOURS.toMillis(rangeHours);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public int scanRows() {
+        return measurementRepository.findRange(ROW_SERIES, MetricType.HEART_RATE, from, to, SAMPLES).size();
+    }
+    
+    @Benchmark
+    public int scanChunks() {
+        return measurementStore.findRange(CHUNK_SERIES, MetricType.HEART_RATE, from, to, SAMPLES).size();
+    }
+    
+    /**
+     * 单个2小时窗口的编码与解码，不经过数据库。
+     */
+    @State(Scope.Benchmark)
+    public static class CodecState {
+        final long[] timestamps = new long[7200];
+        final double[] values = new double[7200];
+        final long[] decodedTimestamps = new long[7200];
+        final double[] decodedValues = new double[7200];
+        byte[] encoded;
+        
+        @Setup
+        public void setUp() {
+            MeasurementBatch batch = heartRate(0, 1700000000000L, timestamps.length);
+            for (int i = 0; i < batch.size(); i++) {
+                timestamps[i] = batch.getTimestamp(i);
+                values[i] = batch.getValue(i);
+            }
+            encoded = GorillaCodec.encode(timestamps, values, 0, timestamps.length);
+        }
+    }
+    
+    @Benchmark
+    public byte[] encodeWindow(CodecState state) {
+        return GorillaCodec.encode(state.timestamps, state.values, 0, state.timestamps.length);
+    }
+    
+    @Benchmark
+    public int decodeWindow(CodecState state) {
+        return GorillaCodec.decode(state.encoded, state.decodedTimestamps, state.decodedValues);
+    }
+    
+    // 约1秒一条，偶有几十毫秒抖动；心率在60到100之间随机游走
+    private static MeasurementBatch heartRate(long healthId, long start, int samples) {
+        Random random = new Random(healthId == 0 ? 42 : 7);
+        MeasurementBatch batch = new MeasurementBatch(healthId, samples);
+        long timestamp = start;
+        int value = 72;
+        for (int i = 0; i < samples; i++) {
+            batch.add(MetricType.HEART_RATE, timestamp, value);
+            timestamp += 1000 + (random.nextInt(10) == 0 ? random.nextInt(41) - 20 : 0);
+            if (random.nextInt(4) == 0) {
+                value = Math.max(60, Math.min(100, value + random.nextInt(3) - 1));
+            }
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,77 @@
+package com.healthtrack.benchmark;
+
+import com.healthtrack.entity.User;
+import com.healthtrack.entity.UserRole;
+import com.healthtrack.repository.UserRepository;
+import com.healthtrack.service.UnifiedUserDetailsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UnifiedUserDetailsService按用户名加载账号的开销，数据库为内存H2，包含JPA与连接池开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDetailsServiceBenchmark {
+    
+    // 预先计算好的BCrypt哈希，避免初始化数据时的哈希开销
+    private static final String PRE_HASHED_PASSWORD = "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z6Yd1UuQ0X1nHq1mFhH5B3uS";
+    
+    @Param({"10000"})
+    private int users;
+    
+    private ConfigurableApplicationContext context;
+    private UnifiedUserDetailsService userDetailsService;
+    private String[] usernames;
+    
+    @Setup
+    public void setUp() {
+        context = BenchmarkFixtures.startH2Context("userdetails");
+        userDetailsService = context.getBean(UnifiedUserDetailsService.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        
+        usernames = new String[users];
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            usernames[i] = "user" + i;
+            batch.add(new User(usernames[i], PRE_HASHED_PASSWORD));
+            if (batch.size() == 1000) {
+                userRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        userRepository.saveAll(batch);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        String username = usernames[ThreadLocalRandom.current().nextInt(usernames.length)];
+        return userDetailsService.loadUserByUsername(username, UserRole.USER);
+    }
+}
@@ -1,9 +1,13 @@
 import { defineStore } from 'pinia'
 import axios from 'axios'
 
+// 并发请求同时遇到401时只发起一次刷新，其余请求等待同一个结果
+let refreshing = null
+
 export const useAuthStore = defineStore('auth', {
   state: () => ({
     token: localStorage.getItem('token') || null,
+    refreshToken: localStorage.getItem('refreshToken') || null,
     user: null,
     isAuthenticated: false
   }),
@@ -21,6 +25,11 @@ export const useAuthStore = defineStore('auth', {
       axios.defaults.headers.common['Authorization'] = `Bearer ${token}`
     },
 
+    setRefreshToken(refreshToken) {
+      this.refreshToken = refreshToken
+      localStorage.setItem('refreshToken', refreshToken)
+    },
+
     setUser(user) {
       this.user = user
       this.isAuthenticated = true
@@ -29,8 +38,9 @@ export const useAuthStore = defineStore('auth', {
     login(credentials) {
       return axios.post('/api/auth/login', credentials)
         .then(response => {
-          const { token, ...userData } = response.data
+          const { token, refreshToken, ...userData } = response.data
           this.setToken(token)
+          this.setRefreshToken(refreshToken)
           this.setUser(userData)
           return response.data
         })
@@ -39,18 +49,66 @@ export const useAuthStore = defineStore('auth', {
     register(userData) {
       return axios.post('/api/auth/register', userData)
         .then(response => {
-          const { token, ...userData } = response.data
+          const { token, refreshToken, ...userData } = response.data
           this.setToken(token)
+          this.setRefreshToken(refreshToken)
           this.setUser(userData)
           return response.data
         })
     },
 
+    // 访问令牌只有15分钟有效期，过期后用刷新令牌换取新令牌，无需重新输入密码
+    refresh() {
+      if (!this.refreshToken) return Promise.reject(new Error('No refresh token'))
+      if (!refreshing) {
+        refreshing = axios.post('/api/auth/refresh', { refreshToken: this.refreshToken })
+          .then(response => {
+            const { token, refreshToken, ...userData } = response.data
+            this.setToken(token)
+            this.setRefreshToken(refreshToken)
+            this.setUser(userData)
+            return token
+          })
+          .finally(() => {
+            refreshing = null
+          })
+      }
+      return refreshing
+    },
+
+    // 注册axios响应拦截器：业务请求返回401时先刷新令牌再重试一次，刷新失败则退出登录
+    installInterceptor() {
+      axios.interceptors.response.use(undefined, error => {
+        const original = error.config
+        if (error.response?.status !== 401 || !original || original._retried
+            || original.url?.startsWith('/api/auth/') || !this.refreshToken) {
+          return Promise.reject(error)
+        }
+        original._retried = true
+        return this.refresh()
+          .then(token => {
+            original.headers['Authorization'] = `Bearer ${token}`
+            return axios(original)
+          })
+          .catch(refreshError => {
+            this.logout()
+            return Promise.reject(refreshError)
+          })
+      })
+    },
+
     logout() {
+      if (this.token || this.refreshToken) {
+        // 服务端吊销访问令牌并作废刷新令牌，失败不影响本地退出
+        axios.post('/api/auth/logout', this.refreshToken ? { refreshToken: this.refreshToken } : null)
+          .catch(() => {})
+      }
       this.token = null
+      this.refreshToken = null
       this.user = null
       this.isAuthenticated = false
       localStorage.removeItem('token')
+      localStorage.removeItem('refreshToken')
       delete axios.defaults.headers.common['Authorization']
     },
 